@@ -0,0 +1,117 @@
+package com.ratingsystem.benchmarks;
+
+import com.ratingsystem.database.DatabaseManager;
+import com.ratingsystem.database.DisciplineService;
+import com.ratingsystem.database.GroupService;
+import com.ratingsystem.database.RatingService;
+import com.ratingsystem.models.Discipline;
+import com.ratingsystem.models.Group;
+import com.ratingsystem.models.Rating;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Генерация данных для бенчмарков и тестовая группа в БД.
+ * Подключение берётся как в приложении: переменные DB_HOST/DB_PORT/DB_NAME/DB_USER/DB_PASSWORD,
+ * затем application.properties
+ */
+final class BenchmarkData {
+
+    static final String GROUP_PREFIX = "BENCH-";
+    static final String DISCIPLINE_CODE = "BENCH-DISC";
+
+    private static final String[] LAST_NAMES = {"Иванов", "Петров", "Сидоров", "Кузнецов", "Смирнов", "Попов"};
+    private static final String[] FIRST_NAMES = {"Алексей", "Мария", "Дмитрий", "Ольга", "Сергей", "Анна"};
+    private static final String[] MIDDLE_NAMES = {"Иванович", "Петрович", "Сергеевич", "Андреевич"};
+
+    private BenchmarkData() {
+    }
+
+    static String studentName(int i) {
+        return LAST_NAMES[i % LAST_NAMES.length] + " "
+                + FIRST_NAMES[(i / LAST_NAMES.length) % FIRST_NAMES.length] + " "
+                + MIDDLE_NAMES[i % MIDDLE_NAMES.length];
+    }
+
+    static double ratingValue(Random random) {
+        return Math.round(random.nextDouble() * 1000) / 10.0;
+    }
+
+    /**
+     * Строки [ФИО, рейтинг] для отчёта по дисциплине
+     */
+    static List<String[]> students(int rows) {
+        Random random = new Random(rows);
+        List<String[]> students = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            students.add(new String[]{studentName(i), String.format("%.2f", ratingValue(random))});
+        }
+        return students;
+    }
+
+    /**
+     * Строки [Дисциплина, №, ФИО, Рейтинг] для полного отчёта
+     */
+    static String[][] fullReportRows(int rows) {
+        Random random = new Random(rows);
+        String[][] data = new String[rows][];
+        for (int i = 0; i < rows; i++) {
+            data[i] = new String[]{
+                    "DISC-" + (i % 10),
+                    String.valueOf(i + 1),
+                    studentName(i),
+                    String.format("%.2f", ratingValue(random))
+            };
+        }
+        return data;
+    }
+
+    static List<Rating> ratings(int disciplineId, int rows) {
+        Random random = new Random(rows);
+        List<Rating> ratings = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            ratings.add(new Rating(disciplineId, i + 1, studentName(i), ratingValue(random)));
+        }
+        return ratings;
+    }
+
+    /**
+     * Группа с одной дисциплиной, созданная для прогона бенчмарка
+     */
+    static final class Fixture {
+        final Group group;
+        final Discipline discipline;
+
+        private Fixture(Group group, Discipline discipline) {
+            this.group = group;
+            this.discipline = discipline;
+        }
+
+        void drop() throws Exception {
+            new GroupService().deleteGroupById(group.getId());
+        }
+    }
+
+    /**
+     * Инициализировать БД и создать группу с дисциплиной; если rows > 0, заполнить её рейтингами
+     */
+    static Fixture createFixture(int rows) throws Exception {
+        DatabaseManager.getInstance().initialize();
+        GroupService groupService = new GroupService();
+        DisciplineService disciplineService = new DisciplineService();
+
+        String groupCode = GROUP_PREFIX + rows + "-" + System.nanoTime();
+        groupService.createGroup(new Group(groupCode, Math.max(rows, 1), 1));
+        Group group = groupService.getGroupByCode(groupCode);
+
+        disciplineService.createDiscipline(new Discipline(group.getId(), DISCIPLINE_CODE));
+        Discipline discipline = disciplineService.getDisciplinesByGroup(group.getId()).get(0);
+
+        if (rows > 0) {
+            new RatingService().upsertRatings(discipline.getId(), ratings(discipline.getId(), rows));
+        }
+        return new Fixture(group, discipline);
+    }
+}
@@ -0,0 +1,75 @@
+package com.ratingsystem.benchmarks;
+
+import com.ratingsystem.database.BulkRatingLoader;
+import com.ratingsystem.database.DatabaseManager;
+import com.ratingsystem.database.RatingService;
+import com.ratingsystem.models.Rating;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Массовая вставка рейтингов в пустую дисциплину: пакетный upsert (путь импорта PDF) и COPY
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Dcache.enabled=false"})
+public class BulkInsertBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    private BenchmarkData.Fixture fixture;
+    private RatingService ratingService;
+    private BulkRatingLoader bulkLoader;
+    private List<Rating> ratings;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = BenchmarkData.createFixture(0);
+        ratingService = new RatingService();
+        bulkLoader = new BulkRatingLoader();
+        ratings = BenchmarkData.ratings(fixture.discipline.getId(), rows);
+    }
+
+    /**
+     * Каждая итерация вставляет в пустую дисциплину, а не обновляет существующие строки
+     */
+    @Setup(Level.Iteration)
+    public void clearRatings() throws Exception {
+        DatabaseManager.getInstance().executeUpdate(
+                "DELETE FROM ratings WHERE discipline_id = ?", fixture.discipline.getId());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.drop();
+        DatabaseManager.getInstance().close();
+    }
+
+    @Benchmark
+    public void upsertRatings() throws Exception {
+        ratingService.upsertRatings(fixture.discipline.getId(), ratings);
+    }
+
+    @Benchmark
+    public BulkRatingLoader.LoadResult copyLoad() throws Exception {
+        return bulkLoader.load(ratings);
+    }
+}
@@ -0,0 +1,67 @@
+package com.ratingsystem.benchmarks;
+
+import com.ratingsystem.utils.PDFExporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Формирование PDF отчётов из подготовленных в памяти строк (без БД)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfExportBenchmark {
+
+    private static final String[] FULL_REPORT_HEADERS = {"Дисциплина", "№", "ФИО Студента", "Рейтинг"};
+
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    private String[][] fullReportData;
+    private List<String[]> students;
+    private File output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fullReportData = BenchmarkData.fullReportRows(rows);
+        students = BenchmarkData.students(rows);
+        output = Files.createTempFile("bench-export", ".pdf").toFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        output.delete();
+    }
+
+    @Benchmark
+    public long exportFullReport() {
+        PDFExporter.exportFullReportToPDF(output.getAbsolutePath(), "Полный отчёт по группе BENCH",
+                FULL_REPORT_HEADERS, fullReportData);
+        return output.length();
+    }
+
+    @Benchmark
+    public long exportDisciplineRatings() {
+        PDFExporter.exportDisciplineRatingsToPDF(output.getAbsolutePath(), "BENCH", "BENCH-DISC", students);
+        return output.length();
+    }
+}
@@ -0,0 +1,148 @@
+package com.ratingsystem.benchmarks;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+import com.ratingsystem.utils.FontRegistry;
+import com.ratingsystem.utils.PDFExporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Маленькие документы, как в пакетном экспорте: время и размер на документ в зависимости от шрифта.
+ * file - шрифт читается из файла (прежний способ), full - файл без подмножества глифов,
+ * registry - общий FontRegistry. Средний размер документа печатается в конце прогона.
+ * Запуск: java -jar target/benchmarks.jar PdfFont
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class PdfFontBenchmark {
+
+    @Param({"file", "full", "registry"})
+    public String fontSource;
+
+    private Map<String, Double> summary;
+    private List<String[]> students;
+    private Font titleFont;
+    private Font normalFont;
+    private final AtomicLong documents = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        summary = new LinkedHashMap<>();
+        for (int i = 0; i < 12; i++) {
+            summary.put(BenchmarkData.DISCIPLINE_CODE + "-" + i, 50.0 + i);
+        }
+        students = BenchmarkData.students(30);
+
+        if (FontRegistry.getInstance().getBaseFont() == null) {
+            throw new IllegalStateException("Cyrillic font not found, set -Dpdf.font.path");
+        }
+        if (!fontSource.equals("registry")) {
+            String file = System.getProperty("pdf.font.path", "/usr/share/fonts/truetype/dejavu/DejaVuSans.ttf");
+            BaseFont bf = BaseFont.createFont(file, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, BaseFont.NOT_CACHED, null, null);
+            bf.setSubset(!fontSource.equals("full"));
+            titleFont = new Font(bf, 16, Font.BOLD);
+            normalFont = new Font(bf, 10, Font.NORMAL);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n%s: %d bytes per document%n", fontSource, bytes.get() / Math.max(1, documents.get()));
+    }
+
+    @Benchmark
+    public int summaryDocument() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+        if (fontSource.equals("registry")) {
+            PDFExporter.exportSummaryToPDF(out, "BENCH-1", summary);
+        } else {
+            writeSummary(out);
+        }
+        documents.incrementAndGet();
+        bytes.addAndGet(out.size());
+        return out.size();
+    }
+
+    @Benchmark
+    public int disciplineDocument() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+        if (fontSource.equals("registry")) {
+            PDFExporter.exportDisciplineRatingsToPDF(out, "BENCH-1", BenchmarkData.DISCIPLINE_CODE, students);
+        } else {
+            writeDiscipline(out);
+        }
+        documents.incrementAndGet();
+        bytes.addAndGet(out.size());
+        return out.size();
+    }
+
+    /**
+     * Та же сводка, что у PDFExporter, но со шрифтом из файла
+     */
+    private void writeSummary(ByteArrayOutputStream out) throws Exception {
+        Document document = new Document();
+        PdfWriter.getInstance(document, out);
+        document.open();
+        document.add(new Paragraph("Сводка рейтингов по группе", titleFont));
+        document.add(new Paragraph("Группа: BENCH-1", normalFont));
+        PdfPTable table = new PdfPTable(2);
+        table.addCell(new Phrase("Код дисциплины", normalFont));
+        table.addCell(new Phrase("Общий рейтинг", normalFont));
+        for (Map.Entry<String, Double> entry : summary.entrySet()) {
+            table.addCell(new Phrase(entry.getKey(), normalFont));
+            table.addCell(new Phrase(String.format("%.2f", entry.getValue()), normalFont));
+        }
+        document.add(table);
+        document.close();
+    }
+
+    private void writeDiscipline(ByteArrayOutputStream out) throws Exception {
+        Document document = new Document();
+        PdfWriter.getInstance(document, out);
+        document.open();
+        document.add(new Paragraph("Рейтинги студентов по дисциплине", titleFont));
+        document.add(new Paragraph("Группа: BENCH-1", normalFont));
+        PdfPTable table = new PdfPTable(3);
+        table.addCell(new Phrase("№ п/п", normalFont));
+        table.addCell(new Phrase("ФИО студента", normalFont));
+        table.addCell(new Phrase("Рейтинг", normalFont));
+        for (int i = 0; i < students.size(); i++) {
+            table.addCell(new Phrase(String.valueOf(i + 1), normalFont));
+            table.addCell(new Phrase(students.get(i)[0], normalFont));
+            table.addCell(new Phrase(students.get(i)[1], normalFont));
+        }
+        document.add(table);
+        document.close();
+    }
+}
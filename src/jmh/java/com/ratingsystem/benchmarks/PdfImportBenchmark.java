@@ -0,0 +1,59 @@
+package com.ratingsystem.benchmarks;
+
+import com.ratingsystem.utils.PDFExporter;
+import com.ratingsystem.utils.PDFImporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор PDF отчёта по дисциплине, сгенерированного экспортером
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfImportBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    private File input;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        input = Files.createTempFile("bench-import", ".pdf").toFile();
+        PDFExporter.exportDisciplineRatingsToPDF(input.getAbsolutePath(), "BENCH", "BENCH-DISC",
+                BenchmarkData.students(rows));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        input.delete();
+    }
+
+    @Benchmark
+    public PDFImporter.ImportedData importDisciplineRatings() throws Exception {
+        PDFImporter.ImportedData data = PDFImporter.importDisciplineRatings(input.getAbsolutePath());
+        if (data.students.size() != rows) {
+            throw new IllegalStateException("Expected " + rows + " students, parsed " + data.students.size());
+        }
+        return data;
+    }
+}
@@ -0,0 +1,254 @@
+package com.ratingsystem.benchmarks;
+
+import com.ratingsystem.database.DatabaseManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Проверка планов запросов сервисов на большом объёме данных.
+ * Заполняет базу группами BENCH-PLAN-... (по умолчанию 100 групп x 20 дисциплин x 500 студентов = 1M рейтингов),
+ * выполняет EXPLAIN для каждого запроса чтения и требует, чтобы перечисленные таблицы читались
+ * через Index Scan / Index Only Scan, а упорядоченные запросы обходились без Sort.
+ * Код выхода 1, если хотя бы одна проверка не прошла. Запуск:
+ * java -cp target/benchmarks.jar com.ratingsystem.benchmarks.QueryPlanCheck
+ */
+public final class QueryPlanCheck {
+
+    private static final String GROUP_PREFIX = BenchmarkData.GROUP_PREFIX + "PLAN-";
+    private static final String[] NOTIFY_TRIGGERS = {
+            "groups.groups_notify_change",
+            "disciplines.disciplines_notify_change",
+            "ratings.ratings_notify_change"
+    };
+
+    /**
+     * Запрос сервиса и таблицы, которые должны читаться по индексу
+     */
+    private static final class Check {
+        final String name;
+        final String sql;
+        final Object[] params;
+        final String[] indexedTables;
+        final boolean ordered;
+        // Полное чтение маленькой таблицы планировщик законно делает Seq Scan + Sort;
+        // с enable_seqscan = off проверяется, что порядок может дать индекс
+        boolean forceIndex;
+
+        Check(String name, String sql, Object[] params, boolean ordered, String... indexedTables) {
+            this.name = name;
+            this.sql = sql;
+            this.params = params;
+            this.ordered = ordered;
+            this.indexedTables = indexedTables;
+        }
+    }
+
+    private QueryPlanCheck() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int groups = Integer.getInteger("plan.groups", 100);
+        int disciplines = Integer.getInteger("plan.disciplines", 20);
+        int students = Integer.getInteger("plan.students", 500);
+        String prefix = GROUP_PREFIX + System.nanoTime() + "-";
+
+        DatabaseManager db = DatabaseManager.getInstance();
+        db.initialize();
+        boolean passed;
+        try {
+            long start = System.nanoTime();
+            seed(db, prefix, groups, disciplines, students);
+            System.out.printf("Seeded %d ratings in %d ms%n", (long) groups * disciplines * students,
+                    (System.nanoTime() - start) / 1_000_000);
+
+            passed = runChecks(db, prefix, groups / 2 + 1, disciplines / 2 + 1, students / 2 + 1);
+        } finally {
+            db.inTransaction(tx -> {
+                withoutNotifications(tx.getConnection(), "DELETE FROM groups WHERE group_code LIKE '" + prefix + "%'");
+                return null;
+            });
+            db.close();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static void seed(DatabaseManager db, String prefix, int groups, int disciplines, int students)
+            throws SQLException {
+        db.inTransaction(tx -> {
+            withoutNotifications(tx.getConnection(),
+                    "INSERT INTO groups (group_code, student_count, discipline_count) " +
+                    "SELECT '" + prefix + "' || lpad(g::text, 6, '0'), " + students + ", " + disciplines + " " +
+                    "FROM generate_series(1, " + groups + ") g",
+
+                    "INSERT INTO disciplines (group_id, discipline_code) " +
+                    "SELECT g.id, 'DISC-' || lpad(d::text, 4, '0') " +
+                    "FROM groups g CROSS JOIN generate_series(1, " + disciplines + ") d " +
+                    "WHERE g.group_code LIKE '" + prefix + "%'",
+
+                    "INSERT INTO ratings (discipline_id, student_number, student_name, rating) " +
+                    "SELECT d.id, s, 'Студент ' || s, round((random() * 100)::numeric, 1) " +
+                    "FROM disciplines d JOIN groups g ON g.id = d.group_id " +
+                    "CROSS JOIN generate_series(1, " + students + ") s " +
+                    "WHERE g.group_code LIKE '" + prefix + "%'");
+            return null;
+        });
+        // Index Only Scan требует актуальной карты видимости
+        for (String table : new String[]{"groups", "disciplines", "ratings", "summaries"}) {
+            db.executeUpdate("VACUUM ANALYZE " + table);
+        }
+    }
+
+    /**
+     * Выполнить SQL с отключёнными триггерами уведомлений: миллион pg_notify в одной транзакции
+     * только нагрузит слушающих клиентов. ALTER TABLE блокирует таблицу до конца транзакции,
+     * поэтому другие сессии отключённых триггеров не видят
+     */
+    private static void withoutNotifications(Connection connection, String... sql) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            for (String trigger : NOTIFY_TRIGGERS) {
+                String[] parts = trigger.split("\\.");
+                stmt.execute("ALTER TABLE " + parts[0] + " DISABLE TRIGGER " + parts[1]);
+            }
+            for (String statement : sql) {
+                stmt.execute(statement);
+            }
+            for (String trigger : NOTIFY_TRIGGERS) {
+                String[] parts = trigger.split("\\.");
+                stmt.execute("ALTER TABLE " + parts[0] + " ENABLE TRIGGER " + parts[1]);
+            }
+        }
+    }
+
+    private static boolean runChecks(DatabaseManager db, String prefix, int groupNo, int disciplineNo, int studentNo)
+            throws SQLException {
+        String groupCode = prefix + String.format("%06d", groupNo);
+        int groupId = db.queryForObject("SELECT id FROM groups WHERE group_code = ?", rs -> rs.getInt(1), groupCode);
+        int disciplineId = db.queryForObject(
+                "SELECT id FROM disciplines WHERE group_id = ? AND discipline_code = ?", rs -> rs.getInt(1),
+                groupId, String.format("DISC-%04d", disciplineNo));
+        int ratingId = db.queryForObject(
+                "SELECT id FROM ratings WHERE discipline_id = ? AND student_number = ?", rs -> rs.getInt(1),
+                disciplineId, studentNo);
+
+        // Тексты запросов совпадают с сервисами
+        List<Check> checks = new ArrayList<>();
+        Check allGroups = new Check("GroupService.getAllGroups",
+                "SELECT id, group_code, student_count, discipline_count FROM groups ORDER BY group_code",
+                new Object[0], true, "groups");
+        allGroups.forceIndex = true;
+        checks.add(allGroups);
+        checks.add(new Check("GroupService.getGroupById",
+                "SELECT id, group_code, student_count, discipline_count FROM groups WHERE id = ?",
+                new Object[]{groupId}, false, "groups"));
+        checks.add(new Check("GroupService.getGroupByCode",
+                "SELECT id, group_code, student_count, discipline_count FROM groups WHERE group_code = ?",
+                new Object[]{groupCode}, false, "groups"));
+        checks.add(new Check("DisciplineService.getDisciplinesByGroup",
+                "SELECT id, group_id, discipline_code FROM disciplines WHERE group_id = ? ORDER BY discipline_code",
+                new Object[]{groupId}, true, "disciplines"));
+        checks.add(new Check("DisciplineService.getDisciplineById",
+                "SELECT id, group_id, discipline_code FROM disciplines WHERE id = ?",
+                new Object[]{disciplineId}, false, "disciplines"));
+        checks.add(new Check("DisciplineService.getDisciplineCount",
+                "SELECT COUNT(*) as count FROM disciplines WHERE group_id = ?",
+                new Object[]{groupId}, false, "disciplines"));
+        checks.add(new Check("RatingService.getRatingsByDiscipline",
+                "SELECT id, discipline_id, student_number, student_name, rating FROM ratings " +
+                "WHERE discipline_id = ? ORDER BY student_number",
+                new Object[]{disciplineId}, true, "ratings"));
+        checks.add(new Check("RatingService.getRatingById",
+                "SELECT id, discipline_id, student_number, student_name, rating FROM ratings WHERE id = ?",
+                new Object[]{ratingId}, false, "ratings"));
+        checks.add(new Check("RatingService.getRatingByStudent",
+                "SELECT id, discipline_id, student_number, student_name, rating FROM ratings " +
+                "WHERE discipline_id = ? AND student_number = ?",
+                new Object[]{disciplineId, studentNo}, false, "ratings"));
+        checks.add(new Check("RatingService.getAverageRating",
+                "SELECT rating_sum / NULLIF(rating_count, 0) as avg_rating FROM summaries WHERE discipline_id = ?",
+                new Object[]{disciplineId}, false, "summaries"));
+        checks.add(new Check("RatingService.getRatingCount",
+                "SELECT rating_count as count FROM summaries WHERE discipline_id = ?",
+                new Object[]{disciplineId}, false, "summaries"));
+        checks.add(new Check("RatingService.getSummaryByGroup",
+                "SELECT d.discipline_code, COALESCE(s.rating_sum / NULLIF(s.rating_count, 0), 0) as avg_rating " +
+                "FROM disciplines d " +
+                "LEFT JOIN summaries s ON s.discipline_id = d.id " +
+                "WHERE d.group_id = ? " +
+                "ORDER BY d.discipline_code",
+                new Object[]{groupId}, true, "disciplines", "summaries"));
+
+        boolean passed = true;
+        for (Check check : checks) {
+            List<String> plan = db.inTransaction(tx -> explain(tx.getConnection(), check));
+            List<String> problems = verify(check, plan);
+            System.out.printf("%-42s %s%n", check.name, problems.isEmpty() ? "OK" : "FAILED");
+            if (!problems.isEmpty()) {
+                passed = false;
+                for (String problem : problems) {
+                    System.out.println("    " + problem);
+                }
+                for (String line : plan) {
+                    System.out.println("      " + line);
+                }
+            }
+        }
+        return passed;
+    }
+
+    private static List<String> explain(Connection connection, Check check) throws SQLException {
+        if (check.forceIndex) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("SET LOCAL enable_seqscan = off");
+            }
+        }
+        List<String> plan = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + check.sql)) {
+            for (int i = 0; i < check.params.length; i++) {
+                ps.setObject(i + 1, check.params[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString(1));
+                }
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Строки плана в текстовом формате: "Index Only Scan using ... on ratings  (cost=...)"
+     */
+    private static List<String> verify(Check check, List<String> plan) {
+        List<String> problems = new ArrayList<>();
+        for (String table : check.indexedTables) {
+            boolean indexed = false;
+            for (String line : plan) {
+                if (line.contains("Seq Scan on " + table + " ") || line.contains("Bitmap Heap Scan on " + table + " ")) {
+                    problems.add("table " + table + " is not read through an index scan");
+                }
+                if ((line.contains("Index Scan using ") || line.contains("Index Only Scan using "))
+                        && line.contains(" on " + table + " ")) {
+                    indexed = true;
+                }
+            }
+            if (!indexed) {
+                problems.add("no index scan on " + table);
+            }
+        }
+        if (check.ordered) {
+            for (String line : plan) {
+                // "Sort" и "Incremental Sort"
+                if (line.contains("Sort  (")) {
+                    problems.add("ORDER BY is not served by an index");
+                }
+            }
+        }
+        return problems;
+    }
+}
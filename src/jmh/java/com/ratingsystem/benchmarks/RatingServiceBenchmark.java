@@ -0,0 +1,62 @@
+package com.ratingsystem.benchmarks;
+
+import com.ratingsystem.database.DatabaseManager;
+import com.ratingsystem.database.RatingService;
+import com.ratingsystem.models.Rating;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение рейтингов и сводки группы из БД. Кэш сервисов отключён, чтобы мерить запросы, а не HashMap
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dcache.enabled=false"})
+public class RatingServiceBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    private BenchmarkData.Fixture fixture;
+    private RatingService ratingService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = BenchmarkData.createFixture(rows);
+        ratingService = new RatingService();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.drop();
+        DatabaseManager.getInstance().close();
+    }
+
+    @Benchmark
+    public List<Rating> getRatingsByDiscipline() {
+        return ratingService.getRatingsByDiscipline(fixture.discipline.getId());
+    }
+
+    @Benchmark
+    public Map<String, Double> getSummaryByGroup() {
+        return ratingService.getSummaryByGroup(fixture.group.getId());
+    }
+}
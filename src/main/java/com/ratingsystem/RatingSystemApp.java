@@ -1,8 +1,14 @@
 package com.ratingsystem;
 
+import com.ratingsystem.database.AuthenticationGuard;
+import com.ratingsystem.database.DataCache;
 import com.ratingsystem.database.DatabaseManager;
+import com.ratingsystem.database.ServiceExecutor;
 import com.ratingsystem.database.UserService;
+import com.ratingsystem.database.WorkScheduler;
+import com.ratingsystem.ui.BackgroundTaskRunner;
 import com.ratingsystem.ui.LoginController;
+import com.ratingsystem.utils.FontRegistry;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -28,6 +34,12 @@ public class RatingSystemApp extends Application {
             DatabaseManager.getInstance().initialize();
             logger.info("Database initialized successfully");
 
+            // Пул проверки паролей и калибровка стоимости BCrypt - до первого входа
+            AuthenticationGuard.getInstance();
+
+            // Шрифт PDF из настроек; сам файл читается при первом экспорте
+            FontRegistry.getInstance().setFontPath(DatabaseManager.getInstance().getConfigProperty("pdf.font.path", ""));
+
             // Загрузка окна входа
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/LoginWindow.fxml"));
             Parent root = loader.load();
@@ -73,6 +85,11 @@ public class RatingSystemApp extends Application {
 
     @Override
     public void stop() throws Exception {
+        BackgroundTaskRunner.shutdown();
+        ServiceExecutor.shutdown();
+        AuthenticationGuard.shutdown();
+        WorkScheduler.shutdown();
+        DataCache.getInstance().logStats();
         DatabaseManager.getInstance().close();
         logger.info("Application stopped");
         super.stop();
@@ -0,0 +1,157 @@
+package com.ratingsystem.database;
+
+import com.ratingsystem.utils.PasswordUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Инфраструктура входа: проверка BCrypt на отдельном пуле по числу ядер с ограниченной очередью
+ * (переполнение - RejectedExecutionException, а не растущая очередь по 250 мс на попытку),
+ * ограничение попыток и перцентили времени входа.
+ * При создании, до запуска пула, подбирает стоимость BCrypt под auth.hash.target-ms на этой машине
+ * (или берёт фиксированную auth.hash.cost): первые входы уже хешируют по итоговой политике.
+ * Singleton паттерн
+ */
+public final class AuthenticationGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthenticationGuard.class);
+    private static final int LATENCY_SAMPLES = 1024;
+    private static AuthenticationGuard instance;
+
+    private final ThreadPoolExecutor executor;
+    private final LoginThrottle throttle;
+    private final LatencyStats latency = new LatencyStats(LATENCY_SAMPLES);
+    private final String source;
+    private volatile String dummyHash;
+
+    private AuthenticationGuard(DatabaseManager db) {
+        // Калибровка синхронно: пока она не закончена, needsRehash сравнивал бы с ценой по умолчанию
+        String fixedCost = db.getConfigProperty("auth.hash.cost", "");
+        if (!fixedCost.isBlank()) {
+            PasswordUtils.setCost(Integer.parseInt(fixedCost.trim()));
+        } else {
+            long targetMillis = Long.parseLong(db.getConfigProperty("auth.hash.target-ms", "100"));
+            int minCost = Integer.parseInt(db.getConfigProperty("auth.hash.min-cost", "10"));
+            int maxCost = Integer.parseInt(db.getConfigProperty("auth.hash.max-cost", "14"));
+            PasswordUtils.calibrateCost(targetMillis, minCost, maxCost);
+        }
+
+        int threads = Integer.parseInt(db.getConfigProperty("auth.threads",
+                String.valueOf(Math.max(1, Runtime.getRuntime().availableProcessors() - 1))));
+        int queueCapacity = Integer.parseInt(db.getConfigProperty("auth.queue-capacity", "32"));
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "auth-worker-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+        this.throttle = new LoginThrottle(
+                Integer.parseInt(db.getConfigProperty("auth.max-failures-per-user", "5")),
+                Integer.parseInt(db.getConfigProperty("auth.max-failures-per-source", "50")),
+                Long.parseLong(db.getConfigProperty("auth.failure-window-ms", "300000")),
+                Long.parseLong(db.getConfigProperty("auth.lockout-ms", "30000")),
+                Long.parseLong(db.getConfigProperty("auth.max-lockout-ms", "900000")));
+        this.source = resolveSource();
+        logger.info("Authentication pool started ({} threads, queue {}), source '{}'", threads, queueCapacity, source);
+    }
+
+    public static synchronized AuthenticationGuard getInstance() {
+        if (instance == null) {
+            instance = new AuthenticationGuard(DatabaseManager.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Проверить пароль на пуле аутентификации. Для несуществующего пользователя (hash == null)
+     * проверяется заглушка, чтобы время ответа не выдавало, есть ли такое имя
+     */
+    CompletableFuture<Boolean> verify(String password, String hash) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                if (hash == null) {
+                    PasswordUtils.verifyPassword(password, getDummyHash());
+                    return false;
+                }
+                return PasswordUtils.verifyPassword(password, hash);
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Authentication queue is full, login rejected");
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Захешировать пароль по текущей политике на пуле аутентификации
+     */
+    CompletableFuture<String> hash(String password) {
+        try {
+            return CompletableFuture.supplyAsync(() -> PasswordUtils.hashPassword(password), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Заглушка той же стоимости, что и настоящие хеши, иначе время проверки снова будет различаться
+     */
+    private String getDummyHash() {
+        String hash = dummyHash;
+        if (hash == null || PasswordUtils.needsRehash(hash)) {
+            hash = PasswordUtils.hashPassword("dummy-password-for-timing");
+            dummyHash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Источник попыток входа - имя этого терминала
+     */
+    public String getSource() {
+        return source;
+    }
+
+    public LoginThrottle getThrottle() {
+        return throttle;
+    }
+
+    /**
+     * Время входа от нажатия до результата, включая ожидание в очереди
+     */
+    public LatencyStats getLatencyStats() {
+        return latency;
+    }
+
+    private static String resolveSource() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "local";
+        }
+    }
+
+    /**
+     * Записать статистику входа в лог и остановить пул (при завершении приложения)
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            logger.info("Authentication latency: {}", instance.latency.snapshot());
+            instance.executor.shutdownNow();
+            instance = null;
+        }
+    }
+}
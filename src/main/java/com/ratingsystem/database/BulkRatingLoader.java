@@ -0,0 +1,169 @@
+package com.ratingsystem.database;
+
+import com.ratingsystem.models.Rating;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Массовая загрузка рейтингов через COPY ... FROM STDIN.
+ * Строки потоком пишутся во временную таблицу, затем одним INSERT ... SELECT ... ON CONFLICT
+ * сливаются в ratings. Сводки обновляются триггерами уровня оператора одной дельтой на дисциплину.
+ * Всё выполняется в одной транзакции (или в текущей, если вызвано внутри inTransaction):
+ * при ошибке ratings не меняется
+ */
+public class BulkRatingLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkRatingLoader.class);
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String CREATE_STAGING_SQL =
+            "CREATE TEMP TABLE IF NOT EXISTS ratings_staging (" +
+            "  seq BIGSERIAL," +
+            "  discipline_id INTEGER NOT NULL," +
+            "  student_number INTEGER NOT NULL," +
+            "  student_name VARCHAR(255)," +
+            "  rating REAL NOT NULL" +
+            ") ON COMMIT DROP";
+
+    private static final String COPY_SQL =
+            "COPY ratings_staging (discipline_id, student_number, student_name, rating) FROM STDIN (FORMAT csv)";
+
+    // При повторе студента в пачке побеждает последняя строка: ON CONFLICT не может изменить строку дважды
+    private static final String MERGE_SQL =
+            "INSERT INTO ratings (discipline_id, student_number, student_name, rating) " +
+            "SELECT DISTINCT ON (discipline_id, student_number) discipline_id, student_number, student_name, rating " +
+            "FROM ratings_staging " +
+            "ORDER BY discipline_id, student_number, seq DESC " +
+            "ON CONFLICT (discipline_id, student_number) DO UPDATE SET " +
+            "student_name = EXCLUDED.student_name, rating = EXCLUDED.rating, updated_at = CURRENT_TIMESTAMP";
+
+    /**
+     * Итог загрузки
+     */
+    public static class LoadResult {
+        private final long rowsCopied;
+        private final long rowsMerged;
+        private final long elapsedNanos;
+
+        LoadResult(long rowsCopied, long rowsMerged, long elapsedNanos) {
+            this.rowsCopied = rowsCopied;
+            this.rowsMerged = rowsMerged;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getRowsCopied() {
+            return rowsCopied;
+        }
+
+        public long getRowsMerged() {
+            return rowsMerged;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000L;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : rowsCopied * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("copied=%d, merged=%d, elapsed=%d ms, %.0f rows/sec",
+                    rowsCopied, rowsMerged, getElapsedMillis(), getRowsPerSecond());
+        }
+    }
+
+    private final DatabaseManager db;
+    private final DataCache cache;
+
+    public BulkRatingLoader() {
+        this.db = DatabaseManager.getInstance();
+        this.cache = DataCache.getInstance();
+    }
+
+    public LoadResult load(Iterable<Rating> ratings) throws SQLException {
+        return load(ratings.iterator());
+    }
+
+    /**
+     * Загрузить рейтинги. Итератор читается один раз, строки в памяти не накапливаются
+     */
+    public LoadResult load(Iterator<Rating> ratings) throws SQLException {
+        long start = System.nanoTime();
+        Set<Integer> disciplineIds = new HashSet<>();
+        long[] counts = db.inTransaction(tx -> {
+            Connection connection = tx.getConnection();
+            // Таблица живёт до конца транзакции: при повторной загрузке в той же транзакции она очищается
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute(CREATE_STAGING_SQL);
+                stmt.execute("TRUNCATE ratings_staging");
+            }
+            try {
+                long copied = copyRows(connection, ratings, disciplineIds);
+                try (Statement stmt = connection.createStatement()) {
+                    return new long[]{copied, stmt.executeUpdate(MERGE_SQL)};
+                }
+            } finally {
+                for (int disciplineId : disciplineIds) {
+                    cache.invalidateRatings(disciplineId);
+                }
+            }
+        });
+        LoadResult result = new LoadResult(counts[0], counts[1], System.nanoTime() - start);
+        logger.info("Bulk rating load finished for {} disciplines: {}", disciplineIds.size(), result);
+        return result;
+    }
+
+    private long copyRows(Connection connection, Iterator<Rating> ratings, Set<Integer> disciplineIds)
+            throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+        try {
+            StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE + 512);
+            while (ratings.hasNext()) {
+                Rating rating = ratings.next();
+                disciplineIds.add(rating.getDisciplineId());
+                appendCsvRow(buffer, rating);
+                if (buffer.length() >= COPY_BUFFER_SIZE) {
+                    writeBuffer(copyIn, buffer);
+                }
+            }
+            writeBuffer(copyIn, buffer);
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void writeBuffer(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.length() == 0) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    private static void appendCsvRow(StringBuilder buffer, Rating rating) {
+        buffer.append(rating.getDisciplineId()).append(',')
+              .append(rating.getStudentNumber()).append(',');
+        String name = rating.getStudentName();
+        if (name != null) {
+            // Пустая строка в кавычках - это '', без кавычек - NULL
+            buffer.append('"').append(name.replace("\"", "\"\"")).append('"');
+        }
+        buffer.append(',').append(rating.getRating()).append('\n');
+    }
+}
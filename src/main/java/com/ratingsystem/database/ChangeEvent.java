@@ -0,0 +1,97 @@
+package com.ratingsystem.database;
+
+/**
+ * Изменение строки в groups, disciplines или ratings, полученное через LISTEN/NOTIFY.
+ * parentId - дисциплина для рейтинга, группа для дисциплины, 0 для группы.
+ * Рейтинги уведомляются по дисциплине на оператор: id 0 значит, что изменено несколько строк дисциплины
+ */
+public class ChangeEvent {
+
+    public enum Entity {
+        GROUP, DISCIPLINE, RATING
+    }
+
+    public enum Operation {
+        INSERT, UPDATE, DELETE
+    }
+
+    private final Entity entity;
+    private final Operation operation;
+    private final int id;
+    private final int parentId;
+    private final boolean local;
+
+    public ChangeEvent(Entity entity, Operation operation, int id, int parentId, boolean local) {
+        this.entity = entity;
+        this.operation = operation;
+        this.id = id;
+        this.parentId = parentId;
+        this.local = local;
+    }
+
+    /**
+     * Разобрать payload уведомления вида "ratings:UPDATE:12:5" (таблица:операция:id:родитель)
+     * @return событие или null, если формат не распознан
+     */
+    static ChangeEvent parse(String payload, boolean local) {
+        String[] parts = payload.split(":");
+        if (parts.length != 4) {
+            return null;
+        }
+        Entity entity;
+        switch (parts[0]) {
+            case "groups":
+                entity = Entity.GROUP;
+                break;
+            case "disciplines":
+                entity = Entity.DISCIPLINE;
+                break;
+            case "ratings":
+                entity = Entity.RATING;
+                break;
+            default:
+                return null;
+        }
+        try {
+            return new ChangeEvent(entity, Operation.valueOf(parts[1]),
+                    Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), local);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public Entity getEntity() {
+        return entity;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getParentId() {
+        return parentId;
+    }
+
+    /**
+     * Изменено несколько строк родителя - список нужно перечитать целиком
+     */
+    public boolean isBulk() {
+        return id == 0;
+    }
+
+    /**
+     * Изменение сделано соединением пула этого же процесса
+     */
+    public boolean isLocal() {
+        return local;
+    }
+
+    @Override
+    public String toString() {
+        return entity + " " + operation + " id=" + id + " parent=" + parentId + (local ? " (local)" : "");
+    }
+}
@@ -0,0 +1,266 @@
+package com.ratingsystem.database;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограниченный пул соединений с PostgreSQL
+ * Соединение проверяется при выдаче только если простаивало дольше validationIdleMillis,
+ * лишние простаивающие соединения закрываются фоновым потоком
+ */
+public class ConnectionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long validationIdleMillis;
+    private final long borrowTimeoutMillis;
+    private final int statementCacheSize;
+    private final StatementCache.Stats statementCacheStats = new StatementCache.Stats();
+
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<Integer> backendPids = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService evictor;
+    private int openCount;
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String user, String password,
+                          int minSize, int maxSize,
+                          long idleTimeoutMillis, long validationIdleMillis, long borrowTimeoutMillis,
+                          int statementCacheSize) throws SQLException {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIdleMillis = validationIdleMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        // Открываем минимальное количество соединений сразу, чтобы ошибки подключения проявились при старте
+        List<PooledConnection> initial = new ArrayList<>();
+        try {
+            for (int i = 0; i < minSize; i++) {
+                initial.add(openConnection());
+            }
+        } catch (SQLException e) {
+            for (PooledConnection pc : initial) {
+                closeQuietly(pc);
+            }
+            throw e;
+        }
+        synchronized (this) {
+            idle.addAll(initial);
+        }
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+
+        logger.info("Connection pool started (min={}, max={})", minSize, maxSize);
+    }
+
+    /**
+     * Взять соединение из пула. Ждёт не дольше borrowTimeoutMillis
+     */
+    public PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeoutMillis + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            while (true) {
+                PooledConnection pc;
+                synchronized (this) {
+                    pc = idle.pollFirst();
+                }
+                if (pc == null) {
+                    return openConnection();
+                }
+                if (isUsable(pc)) {
+                    return pc;
+                }
+                logger.info("Discarding broken pooled connection");
+                discard(pc);
+            }
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Вернуть соединение в пул
+     */
+    public void release(PooledConnection pc) {
+        if (pc == null) {
+            return;
+        }
+        try {
+            boolean reusable = !closed && !pc.isBroken() && !pc.getConnection().isClosed();
+            if (reusable && !pc.getConnection().getAutoCommit()) {
+                // Незавершённую транзакцию нельзя отдавать следующему потребителю
+                pc.getConnection().rollback();
+                pc.getConnection().setAutoCommit(true);
+            }
+            if (reusable) {
+                pc.touch();
+                synchronized (this) {
+                    idle.addFirst(pc);
+                }
+            } else {
+                discard(pc);
+            }
+        } catch (SQLException e) {
+            logger.warn("Failed to reset pooled connection, discarding it", e);
+            discard(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        try {
+            if (pc.getConnection().isClosed()) {
+                return false;
+            }
+            if (pc.idleMillis() < validationIdleMillis) {
+                return true;
+            }
+            return pc.getConnection().isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection openConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, user, password);
+        connection.setAutoCommit(true);
+        int backendPid = connection.unwrap(PGConnection.class).getBackendPID();
+        backendPids.add(backendPid);
+        synchronized (this) {
+            openCount++;
+        }
+        return new PooledConnection(connection, backendPid, statementCacheSize, statementCacheStats);
+    }
+
+    private void discard(PooledConnection pc) {
+        backendPids.remove(pc.getBackendPid());
+        synchronized (this) {
+            openCount--;
+        }
+        closeQuietly(pc);
+    }
+
+    /**
+     * Закрыть соединения, простаивающие дольше idleTimeoutMillis, оставив не меньше minSize
+     */
+    private void evictIdle() {
+        List<PooledConnection> expired = new ArrayList<>();
+        synchronized (this) {
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && openCount - expired.size() > minSize) {
+                PooledConnection pc = it.next();
+                if (pc.idleMillis() >= idleTimeoutMillis) {
+                    it.remove();
+                    expired.add(pc);
+                }
+            }
+        }
+        for (PooledConnection pc : expired) {
+            discard(pc);
+        }
+        if (!expired.isEmpty()) {
+            logger.debug("Evicted {} idle connections", expired.size());
+        }
+    }
+
+    private static void closeQuietly(PooledConnection pc) {
+        try {
+            pc.close();
+        } catch (SQLException e) {
+            logger.debug("Error closing pooled connection", e);
+        }
+    }
+
+    /**
+     * Обслуживает ли серверный процесс с данным PID одно из соединений пула
+     * (по нему уведомления об изменениях отделяются от сделанных этим же приложением)
+     */
+    public boolean isOwnBackend(int pid) {
+        return backendPids.contains(pid);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public StatementCache.Stats getStatementCacheStats() {
+        return statementCacheStats;
+    }
+
+    public synchronized int getOpenCount() {
+        return openCount;
+    }
+
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Закрыть все простаивающие соединения и запретить выдачу новых
+     */
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        List<PooledConnection> toClose;
+        synchronized (this) {
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+        }
+        for (PooledConnection pc : toClose) {
+            discard(pc);
+        }
+        logger.info("Connection pool closed");
+    }
+}
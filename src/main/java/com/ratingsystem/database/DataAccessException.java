@@ -0,0 +1,20 @@
+package com.ratingsystem.database;
+
+import java.sql.SQLException;
+
+/**
+ * Непроверяемая обёртка над SQLException для ленивых потоков строк
+ */
+public class DataAccessException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DataAccessException(String message, SQLException cause) {
+        super(message, cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
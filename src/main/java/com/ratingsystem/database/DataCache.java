@@ -0,0 +1,135 @@
+package com.ratingsystem.database;
+
+import com.ratingsystem.models.Discipline;
+import com.ratingsystem.models.Group;
+import com.ratingsystem.models.Rating;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Кэш справочных данных для сервисов: список групп, дисциплины группы, рейтинги дисциплины.
+ * Сервисы читают через кэш и инвалидируют нужные ключи после каждой записи,
+ * изменения других клиентов приходят через уведомления БД.
+ * Внутри транзакции кэш не используется (транзакция видит свои незафиксированные изменения),
+ * а инвалидация откладывается до её завершения
+ * Singleton паттерн
+ */
+public class DataCache implements DataChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataCache.class);
+    private static final String ALL_GROUPS = "all";
+    private static DataCache instance;
+
+    private final DatabaseManager db;
+    private final LruCache<String, List<Group>> groups;
+    private final LruCache<Integer, List<Discipline>> disciplinesByGroup;
+    private final LruCache<Integer, List<Rating>> ratingsByDiscipline;
+
+    private DataCache(DatabaseManager db, int maxEntries, long ttlMillis) {
+        this.db = db;
+        this.groups = new LruCache<>("groups", Math.min(maxEntries, 1), ttlMillis);
+        this.disciplinesByGroup = new LruCache<>("disciplines", maxEntries, ttlMillis);
+        this.ratingsByDiscipline = new LruCache<>("ratings", maxEntries, ttlMillis);
+    }
+
+    /**
+     * Получить единственный экземпляр. Размер и TTL берутся из application.properties
+     */
+    public static synchronized DataCache getInstance() {
+        if (instance == null) {
+            DatabaseManager db = DatabaseManager.getInstance();
+            boolean enabled = Boolean.parseBoolean(db.getConfigProperty("cache.enabled", "true"));
+            int maxEntries = enabled ? Integer.parseInt(db.getConfigProperty("cache.max-entries", "256")) : 0;
+            long ttlMillis = Long.parseLong(db.getConfigProperty("cache.ttl-ms", "60000"));
+            instance = new DataCache(db, maxEntries, ttlMillis);
+            db.addChangeListener(instance);
+        }
+        return instance;
+    }
+
+    public List<Group> getAllGroups(LruCache.Loader<List<Group>> loader) throws Exception {
+        return db.isInTransaction() ? loader.load() : groups.getOrLoad(ALL_GROUPS, loader);
+    }
+
+    public List<Discipline> getDisciplines(int groupId, LruCache.Loader<List<Discipline>> loader) throws Exception {
+        return db.isInTransaction() ? loader.load() : disciplinesByGroup.getOrLoad(groupId, loader);
+    }
+
+    public List<Rating> getRatings(int disciplineId, LruCache.Loader<List<Rating>> loader) throws Exception {
+        return db.isInTransaction() ? loader.load() : ratingsByDiscipline.getOrLoad(disciplineId, loader);
+    }
+
+    public void invalidateGroups() {
+        db.afterCompletion(() -> groups.invalidate(ALL_GROUPS));
+    }
+
+    public void invalidateDisciplines(int groupId) {
+        db.afterCompletion(() -> disciplinesByGroup.invalidate(groupId));
+    }
+
+    public void invalidateRatings(int disciplineId) {
+        db.afterCompletion(() -> ratingsByDiscipline.invalidate(disciplineId));
+    }
+
+    @Override
+    public void onChange(ChangeEvent event) {
+        // Свои записи сервисы уже инвалидировали
+        if (event.isLocal()) {
+            return;
+        }
+        switch (event.getEntity()) {
+            case GROUP:
+                invalidateGroups();
+                if (event.getOperation() == ChangeEvent.Operation.DELETE) {
+                    invalidateDisciplines(event.getId());
+                }
+                break;
+            case DISCIPLINE:
+                invalidateDisciplines(event.getParentId());
+                if (event.getOperation() == ChangeEvent.Operation.DELETE) {
+                    invalidateRatings(event.getId());
+                }
+                break;
+            case RATING:
+                invalidateRatings(event.getParentId());
+                break;
+        }
+    }
+
+    @Override
+    public void onResync() {
+        invalidateAll();
+    }
+
+    /**
+     * Сбросить все закэшированные данные
+     */
+    public void invalidateAll() {
+        groups.invalidateAll();
+        disciplinesByGroup.invalidateAll();
+        ratingsByDiscipline.invalidateAll();
+    }
+
+    public LruCache.Stats getGroupStats() {
+        return groups.getStats();
+    }
+
+    public LruCache.Stats getDisciplineStats() {
+        return disciplinesByGroup.getStats();
+    }
+
+    public LruCache.Stats getRatingStats() {
+        return ratingsByDiscipline.getStats();
+    }
+
+    /**
+     * Записать статистику попаданий в лог
+     */
+    public void logStats() {
+        for (LruCache<?, ?> cache : List.<LruCache<?, ?>>of(groups, disciplinesByGroup, ratingsByDiscipline)) {
+            logger.info("Data cache '{}': {}", cache.getName(), cache.getStats());
+        }
+    }
+}
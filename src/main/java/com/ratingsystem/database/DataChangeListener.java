@@ -0,0 +1,16 @@
+package com.ratingsystem.database;
+
+/**
+ * Подписчик на изменения данных в БД. Вызывается из потока слушателя уведомлений
+ */
+public interface DataChangeListener {
+
+    void onChange(ChangeEvent event);
+
+    /**
+     * Соединение слушателя восстановлено после обрыва, уведомления могли быть потеряны -
+     * всё, что держится в памяти, нужно перечитать
+     */
+    default void onResync() {
+    }
+}
@@ -7,7 +7,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.FileInputStream;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.io.File;
 import javax.sql.rowset.CachedRowSet;
 import javax.sql.rowset.RowSetFactory;
@@ -20,8 +27,14 @@ import javax.sql.rowset.RowSetProvider;
 public class DatabaseManager {
 
     private static final Logger logger = LoggerFactory.getLogger(DatabaseManager.class);
+    private static final int BATCH_CHUNK_SIZE = 1000;
     private static DatabaseManager instance;
-    private Connection connection;
+    private ConnectionPool pool;
+    private NotificationListener notificationListener;
+    private final ThreadLocal<Tx> currentTx = new ThreadLocal<>();
+    private RowSetFactory rowSetFactory;
+    private int fetchSize = 500;
+    private Properties config = new Properties();
     private String dbType;
     private String dbUrl;
 
@@ -109,12 +122,16 @@ public class DatabaseManager {
      */
     public void initialize() {
         try {
-            Properties config = loadConfiguration();
+            config = loadConfiguration();
             logger.info("Initializing PostgreSQL database connection");
             
+            fetchSize = Integer.parseInt(config.getProperty("db.fetch-size", "500"));
             initializePostgreSQL(config);
-            createTables();
-            logger.info("Database tables created/verified");
+            migrateSchema();
+
+            if (Boolean.parseBoolean(config.getProperty("db.notifications.enabled", "true"))) {
+                notificationListener.start();
+            }
         } catch (Exception e) {
             logger.error("Failed to initialize database", e);
             throw new RuntimeException("Database initialization failed", e);
@@ -149,7 +166,12 @@ public class DatabaseManager {
         }
         
         // Добавляем таймаут подключения (10 секунд), чтобы приложение не зависало при отсутствии сети
-        dbUrl = String.format("jdbc:postgresql://%s:%s/%s?sslmode=disable&connectTimeout=10", host, port, database);
+        // prepareThreshold - после скольких выполнений оператор становится серверным (PREPARE на стороне PostgreSQL)
+        String prepareThreshold = config.getProperty("db.statement-cache.prepare-threshold", "1");
+        // reWriteBatchedInserts - драйвер склеивает пакет INSERT в многострочный VALUES
+        dbUrl = String.format("jdbc:postgresql://%s:%s/%s?sslmode=disable&connectTimeout=10&prepareThreshold=%s"
+                        + "&reWriteBatchedInserts=true",
+                host, port, database, prepareThreshold);
         
         logger.info("Connecting to database at {}:{}...", host, port);
         
@@ -161,9 +183,17 @@ public class DatabaseManager {
         }
         
         try {
-            connection = DriverManager.getConnection(dbUrl, user, password);
-            connection.setAutoCommit(true);
+            pool = new ConnectionPool(
+                    dbUrl, user, password,
+                    Integer.parseInt(config.getProperty("db.pool.min-size", "2")),
+                    Integer.parseInt(config.getProperty("db.pool.max-size", "10")),
+                    Long.parseLong(config.getProperty("db.pool.idle-timeout-ms", "300000")),
+                    Long.parseLong(config.getProperty("db.pool.validation-idle-ms", "30000")),
+                    Long.parseLong(config.getProperty("db.pool.borrow-timeout-ms", "10000")),
+                    Integer.parseInt(config.getProperty("db.statement-cache.size", "64"))
+            );
             logger.info("✓ Connected to PostgreSQL: {}:{}/{}", host, port, database);
+            notificationListener = new NotificationListener(dbUrl, user, password, pool::isOwnBackend);
         } catch (SQLException e) {
             logger.error("Failed to connect to PostgreSQL at {}:{}. Error: {}", host, port, e.getMessage());
             throw e;
@@ -171,133 +201,258 @@ public class DatabaseManager {
     }
 
     /**
-     * Создать таблицы в БД
+     * Привести схему БД к последней версии (см. SchemaMigrator)
      */
-    private void createTables() throws SQLException {
-        String[] tables = getPostgreSQLTables();
+    private void migrateSchema() throws SQLException {
+        PooledConnection pc = pool.borrow();
+        try {
+            new SchemaMigrator().migrate(pc.getConnection());
+        } finally {
+            pool.release(pc);
+        }
+    }
 
-        try (Statement stmt = connection.createStatement()) {
-            for (String table : tables) {
-                stmt.execute(table);
-            }
+    /**
+     * Взять соединение из пула. Вызывающий обязан вернуть его через releaseConnection.
+     * Внутри inTransaction возвращается соединение текущей транзакции
+     */
+    PooledConnection borrowConnection() throws SQLException {
+        Tx tx = currentTx.get();
+        if (tx != null) {
+            return tx.getPooledConnection();
         }
-        
-        // Запустить миграции для обновления схемы
-        runMigrations();
-        logger.info("Tables created successfully");
+        if (pool == null) {
+            throw new SQLException("Database is not initialized");
+        }
+        return pool.borrow();
+    }
+
+    /**
+     * Вернуть соединение в пул (соединение транзакции возвращается только по её завершении)
+     */
+    void releaseConnection(PooledConnection pc) {
+        if (!isPinned(pc)) {
+            pool.release(pc);
+        }
+    }
+
+    private boolean isPinned(PooledConnection pc) {
+        Tx tx = currentTx.get();
+        return tx != null && tx.getPooledConnection() == pc;
     }
 
     /**
-     * Запустить миграции БД
+     * Выполнить работу в одной транзакции на одном соединении.
+     * Все вызовы DatabaseManager и сервисов из этого потока внутри work используют это соединение;
+     * вложенный inTransaction присоединяется к внешнему. Фиксация - один раз в конце,
+     * любое исключение откатывает всю транзакцию
      */
-    private void runMigrations() throws SQLException {
-        // Проверить и добавить поле student_name в таблицу ratings если его нет
-        try (Statement stmt = connection.createStatement()) {
+    public <T, E extends Exception> T inTransaction(TransactionCallback<T, E> work) throws E, SQLException {
+        Tx current = currentTx.get();
+        if (current != null) {
             try {
-                // Попытаться выбрать из колонки student_name
-                stmt.executeQuery("SELECT student_name FROM ratings LIMIT 1");
-                logger.info("Column student_name already exists in ratings table");
-            } catch (SQLException e) {
-                if (e.getMessage().contains("column \"student_name\" does not exist")) {
-                    // Добавить колонку если её нет
-                    logger.info("Adding student_name column to ratings table");
-                    stmt.execute("ALTER TABLE ratings ADD COLUMN student_name VARCHAR(255)");
-                    logger.info("Column student_name added successfully");
-                } else {
-                    throw e;
-                }
+                return work.doInTransaction(current);
+            } catch (Exception | Error e) {
+                current.setRollbackOnly();
+                throw e;
+            }
+        }
+
+        PooledConnection pc = borrowConnection();
+        Connection connection = pc.getConnection();
+        Tx tx = new Tx(pc);
+        boolean committed = false;
+        try {
+            connection.setAutoCommit(false);
+            currentTx.set(tx);
+            T result = work.doInTransaction(tx);
+            if (tx.isRollbackOnly()) {
+                throw new SQLException("Transaction was marked rollback-only by a nested operation");
+            }
+            connection.commit();
+            committed = true;
+            return result;
+        } catch (SQLException e) {
+            pc.checkError(e);
+            throw e;
+        } finally {
+            currentTx.remove();
+            if (!committed) {
+                rollbackQuietly(connection);
             }
+            restoreAutoCommit(pc);
+            pool.release(pc);
+            tx.runCompletionCallbacks();
         }
     }
 
     /**
-     * SQL для PostgreSQL
+     * Выполняется ли текущий поток внутри inTransaction
      */
-    private String[] getPostgreSQLTables() {
-        return new String[]{
-            // Таблица пользователей
-            "CREATE TABLE IF NOT EXISTS users (" +
-            "  id SERIAL PRIMARY KEY," +
-            "  username VARCHAR(255) UNIQUE NOT NULL," +
-            "  password_hash VARCHAR(255) NOT NULL," +
-            "  role VARCHAR(50) NOT NULL," +
-            "  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-            ");",
-
-            // Таблица групп
-            "CREATE TABLE IF NOT EXISTS groups (" +
-            "  id SERIAL PRIMARY KEY," +
-            "  group_code VARCHAR(255) UNIQUE NOT NULL," +
-            "  student_count INTEGER NOT NULL," +
-            "  discipline_count INTEGER NOT NULL," +
-            "  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-            "  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-            ");",
-
-            // Таблица дисциплин
-            "CREATE TABLE IF NOT EXISTS disciplines (" +
-            "  id SERIAL PRIMARY KEY," +
-            "  group_id INTEGER NOT NULL," +
-            "  discipline_code VARCHAR(255) NOT NULL," +
-            "  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-            "  FOREIGN KEY (group_id) REFERENCES groups(id) ON DELETE CASCADE," +
-            "  UNIQUE(group_id, discipline_code)" +
-            ");",
-
-            // Таблица рейтингов студентов
-            "CREATE TABLE IF NOT EXISTS ratings (" +
-            "  id SERIAL PRIMARY KEY," +
-            "  discipline_id INTEGER NOT NULL," +
-            "  student_number INTEGER NOT NULL," +
-            "  student_name VARCHAR(255)," +
-            "  rating REAL NOT NULL CHECK(rating >= 0 AND rating <= 100)," +
-            "  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-            "  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-            "  FOREIGN KEY (discipline_id) REFERENCES disciplines(id) ON DELETE CASCADE," +
-            "  UNIQUE(discipline_id, student_number)" +
-            ");",
-
-            // Таблица сводок
-            "CREATE TABLE IF NOT EXISTS summaries (" +
-            "  id SERIAL PRIMARY KEY," +
-            "  group_id INTEGER NOT NULL," +
-            "  discipline_id INTEGER NOT NULL," +
-            "  avg_rating REAL NOT NULL," +
-            "  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-            "  FOREIGN KEY (group_id) REFERENCES groups(id) ON DELETE CASCADE," +
-            "  FOREIGN KEY (discipline_id) REFERENCES disciplines(id) ON DELETE CASCADE," +
-            "  UNIQUE(group_id, discipline_id)" +
-            ");"
-        };
+    public boolean isInTransaction() {
+        return currentTx.get() != null;
+    }
+
+    /**
+     * Выполнить действие после завершения текущей транзакции, а вне транзакции - сразу
+     */
+    public void afterCompletion(Runnable callback) {
+        Tx tx = currentTx.get();
+        if (tx != null) {
+            tx.afterCompletion(callback);
+        } else {
+            callback.run();
+        }
+    }
+
+    /**
+     * Фабрика RowSet создаётся один раз: RowSetProvider.newFactory() ищет реализацию через ServiceLoader
+     */
+    private synchronized RowSetFactory getRowSetFactory() throws SQLException {
+        if (rowSetFactory == null) {
+            rowSetFactory = RowSetProvider.newFactory();
+        }
+        return rowSetFactory;
+    }
+
+    private static void bindParams(PreparedStatement pstmt, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            pstmt.setObject(i + 1, params[i]);
+        }
     }
 
     /**
-     * Получить соединение с БД (с проверкой на валидность)
+     * Выполнить SELECT и преобразовать каждую строку через mapper, без промежуточного RowSet
      */
-    public Connection getConnection() throws SQLException {
+    public <T> List<T> query(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        List<T> result = new ArrayList<>();
+        forEachRow(sql, mapper, result::add, params);
+        return result;
+    }
+
+    /**
+     * Выполнить SELECT и вернуть первую строку (или null, если строк нет)
+     */
+    public <T> T queryForObject(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        PooledConnection pc = borrowConnection();
+        PreparedStatement pstmt = null;
         try {
-            if (connection == null || connection.isClosed() || !connection.isValid(2)) {
-                logger.info("Database connection is closed or invalid. Reconnecting...");
-                Properties config = loadConfiguration();
-                initializePostgreSQL(config);
+            pstmt = pc.prepare(sql);
+            bindParams(pstmt, params);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? mapper.mapRow(rs) : null;
             }
+        } catch (SQLException e) {
+            pc.checkError(e);
+            throw e;
+        } finally {
+            pc.releaseStatement(pstmt);
+            releaseConnection(pc);
+        }
+    }
+
+    /**
+     * Выполнить SELECT и передать каждую строку в consumer по мере чтения
+     */
+    public <T> void forEachRow(String sql, RowMapper<T> mapper, Consumer<? super T> consumer,
+                               Object... params) throws SQLException {
+        PooledConnection pc = borrowConnection();
+        PreparedStatement pstmt = null;
+        try {
+            pstmt = pc.prepare(sql);
+            bindParams(pstmt, params);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(mapper.mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            pc.checkError(e);
+            throw e;
+        } finally {
+            pc.releaseStatement(pstmt);
+            releaseConnection(pc);
+        }
+    }
+
+    /**
+     * Выполнить SELECT как серверный курсор: строки читаются порциями по db.fetch-size.
+     * Соединение занято до закрытия потока, поэтому поток нужно закрывать (try-with-resources).
+     * Ошибки чтения пробрасываются как DataAccessException
+     */
+    public <T> Stream<T> stream(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        PooledConnection pc = borrowConnection();
+        // Внутри inTransaction соединение уже в транзакции и возвращается в пул при её завершении
+        final boolean joined = isPinned(pc);
+        PreparedStatement pstmt = null;
+        ResultSet rs;
+        try {
+            // PostgreSQL использует курсор с fetchSize только внутри транзакции
+            pc.getConnection().setAutoCommit(false);
+            pstmt = pc.prepare(sql);
+            pstmt.setFetchSize(fetchSize);
+            bindParams(pstmt, params);
+            rs = pstmt.executeQuery();
+        } catch (SQLException e) {
+            pc.checkError(e);
+            pc.releaseStatement(pstmt);
+            releaseConnection(pc);
+            throw e;
+        }
+
+        final PreparedStatement statement = pstmt;
+        final ResultSet resultSet = rs;
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.mapRow(resultSet));
+                    return true;
+                } catch (SQLException e) {
+                    pc.checkError(e);
+                    throw new DataAccessException("Error reading streamed result", e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            closeQuietly(resultSet);
+            pc.releaseStatement(statement);
+            if (!joined) {
+                pool.release(pc);
+            }
+        });
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        if (resource == null) {
+            return;
+        }
+        try {
+            resource.close();
         } catch (Exception e) {
-            logger.error("Failed to reconnect to database", e);
-            throw new SQLException("Database connection lost and could not be restored", e);
+            logger.debug("Error closing JDBC resource", e);
         }
-        return connection;
     }
 
     /**
      * Выполнить SQL запрос (SELECT) - Возвращает CachedRowSet, который не требует открытого соединения
      */
     public ResultSet executeQuery(String sql) throws SQLException {
-        try (Statement stmt = getConnection().createStatement();
+        PooledConnection pc = borrowConnection();
+        try (Statement stmt = pc.getConnection().createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
-            RowSetFactory factory = RowSetProvider.newFactory();
-            CachedRowSet crs = factory.createCachedRowSet();
+            CachedRowSet crs = getRowSetFactory().createCachedRowSet();
             crs.populate(rs);
             return crs;
+        } catch (SQLException e) {
+            pc.checkError(e);
+            throw e;
+        } finally {
+            releaseConnection(pc);
         }
     }
 
@@ -306,8 +461,14 @@ public class DatabaseManager {
      * Автоматически закрывает statement
      */
     public int executeUpdate(String sql) throws SQLException {
-        try (Statement stmt = getConnection().createStatement()) {
+        PooledConnection pc = borrowConnection();
+        try (Statement stmt = pc.getConnection().createStatement()) {
             return stmt.executeUpdate(sql);
+        } catch (SQLException e) {
+            pc.checkError(e);
+            throw e;
+        } finally {
+            releaseConnection(pc);
         }
     }
 
@@ -316,11 +477,18 @@ public class DatabaseManager {
      * Автоматически закрывает statement
      */
     public int executeUpdate(String sql, Object... params) throws SQLException {
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
-            for (int i = 0; i < params.length; i++) {
-                pstmt.setObject(i + 1, params[i]);
-            }
+        PooledConnection pc = borrowConnection();
+        PreparedStatement pstmt = null;
+        try {
+            pstmt = pc.prepare(sql);
+            bindParams(pstmt, params);
             return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            pc.checkError(e);
+            throw e;
+        } finally {
+            pc.releaseStatement(pstmt);
+            releaseConnection(pc);
         }
     }
 
@@ -328,30 +496,127 @@ public class DatabaseManager {
      * Выполнить SQL запрос с подготовленным оператором - Возвращает CachedRowSet
      */
     public ResultSet executeQuery(String sql, Object... params) throws SQLException {
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
-            for (int i = 0; i < params.length; i++) {
-                pstmt.setObject(i + 1, params[i]);
-            }
+        PooledConnection pc = borrowConnection();
+        PreparedStatement pstmt = null;
+        try {
+            pstmt = pc.prepare(sql);
+            bindParams(pstmt, params);
             try (ResultSet rs = pstmt.executeQuery()) {
-                RowSetFactory factory = RowSetProvider.newFactory();
-                CachedRowSet crs = factory.createCachedRowSet();
+                CachedRowSet crs = getRowSetFactory().createCachedRowSet();
                 crs.populate(rs);
                 return crs;
             }
+        } catch (SQLException e) {
+            pc.checkError(e);
+            throw e;
+        } finally {
+            pc.releaseStatement(pstmt);
+            releaseConnection(pc);
         }
     }
 
     /**
-     * Закрыть соединение с БД
+     * Выполнить один и тот же оператор для набора параметров одним JDBC-пакетом в одной транзакции
+     * (или в текущей, если вызвано внутри inTransaction). При ошибке вся транзакция откатывается
      */
-    public void close() {
-        if (connection != null) {
+    public void executeBatch(String sql, List<Object[]> batchParams) throws SQLException {
+        if (batchParams.isEmpty()) {
+            return;
+        }
+        inTransaction(tx -> {
+            PooledConnection pc = tx.getPooledConnection();
+            PreparedStatement pstmt = pc.prepare(sql);
             try {
-                connection.close();
-                logger.info("Database connection closed");
-            } catch (SQLException e) {
-                logger.error("Error closing database connection", e);
+                int pending = 0;
+                for (Object[] params : batchParams) {
+                    bindParams(pstmt, params);
+                    pstmt.addBatch();
+                    if (++pending == BATCH_CHUNK_SIZE) {
+                        pstmt.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    pstmt.executeBatch();
+                }
+            } finally {
+                try {
+                    pstmt.clearBatch();
+                } catch (SQLException e) {
+                    logger.debug("Error clearing batch", e);
+                }
+                pc.releaseStatement(pstmt);
             }
+            return null;
+        });
+    }
+
+    static void rollbackQuietly(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            logger.warn("Rollback failed", e);
+        }
+    }
+
+    static void restoreAutoCommit(PooledConnection pc) {
+        try {
+            pc.getConnection().setAutoCommit(true);
+        } catch (SQLException e) {
+            pc.checkError(e);
+            logger.debug("Failed to restore autocommit", e);
+        }
+    }
+
+    /**
+     * Подписаться на изменения данных, сделанные любым клиентом БД
+     */
+    public void addChangeListener(DataChangeListener listener) {
+        if (notificationListener != null) {
+            notificationListener.addListener(listener);
+        }
+    }
+
+    public void removeChangeListener(DataChangeListener listener) {
+        if (notificationListener != null) {
+            notificationListener.removeListener(listener);
+        }
+    }
+
+    /**
+     * Значение из application.properties (доступно после initialize).
+     * Системное свойство JVM с тем же именем (-Dkey=value) имеет приоритет
+     */
+    public String getConfigProperty(String key, String defaultValue) {
+        return System.getProperty(key, config.getProperty(key, defaultValue));
+    }
+
+    /**
+     * Размер пула соединений (максимальное число одновременных запросов)
+     */
+    public int getPoolMaxSize() {
+        return pool != null ? pool.getMaxSize() : 0;
+    }
+
+    /**
+     * Статистика кэша подготовленных операторов по всем соединениям пула
+     */
+    public StatementCache.Stats getStatementCacheStats() {
+        return pool != null ? pool.getStatementCacheStats() : new StatementCache.Stats();
+    }
+
+    /**
+     * Закрыть соединение с БД
+     */
+    public void close() {
+        if (notificationListener != null) {
+            notificationListener.stop();
+        }
+        if (pool != null) {
+            logger.info("Statement cache: {}", pool.getStatementCacheStats());
+            pool.close();
+            pool = null;
+            logger.info("Database connection closed");
         }
     }
 }
@@ -4,9 +4,10 @@ import com.ratingsystem.models.Discipline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Сервис для работы с дисциплинами
@@ -14,34 +15,46 @@ import java.util.List;
 public class DisciplineService {
 
     private static final Logger logger = LoggerFactory.getLogger(DisciplineService.class);
+
+    static final RowMapper<Discipline> DISCIPLINE_MAPPER = rs -> new Discipline(
+            rs.getInt("id"),
+            rs.getInt("group_id"),
+            rs.getString("discipline_code")
+    );
+
     private DatabaseManager db;
+    private DataCache cache;
 
     public DisciplineService() {
         this.db = DatabaseManager.getInstance();
+        this.cache = DataCache.getInstance();
     }
 
     /**
-     * Получить все дисциплины для группы
+     * Получить все дисциплины для группы (через кэш, возвращается копия списка)
      */
     public List<Discipline> getDisciplinesByGroup(int groupId) {
-        List<Discipline> disciplines = new ArrayList<>();
         try {
-            ResultSet rs = db.executeQuery(
-                    "SELECT id, group_id, discipline_code FROM disciplines WHERE group_id = ? ORDER BY discipline_code",
-                    groupId
-            );
-            while (rs.next()) {
-                Discipline discipline = new Discipline(
-                        rs.getInt("id"),
-                        rs.getInt("group_id"),
-                        rs.getString("discipline_code")
-                );
-                disciplines.add(discipline);
-            }
+            return loadDisciplinesByGroup(groupId);
         } catch (Exception e) {
             logger.error("Error getting disciplines for group: {}", groupId, e);
         }
-        return disciplines;
+        return new ArrayList<>();
+    }
+
+    /**
+     * Асинхронно получить дисциплины группы. Ошибка БД завершает future исключительно
+     */
+    public CompletableFuture<List<Discipline>> getDisciplinesByGroupAsync(int groupId) {
+        return ServiceExecutor.supply(() -> loadDisciplinesByGroup(groupId));
+    }
+
+    private List<Discipline> loadDisciplinesByGroup(int groupId) throws Exception {
+        return new ArrayList<>(cache.getDisciplines(groupId, () -> db.query(
+                "SELECT id, group_id, discipline_code FROM disciplines WHERE group_id = ? ORDER BY discipline_code",
+                DISCIPLINE_MAPPER,
+                groupId
+        )));
     }
 
     /**
@@ -49,32 +62,41 @@ public class DisciplineService {
      */
     public Discipline getDisciplineById(int id) {
         try {
-            ResultSet rs = db.executeQuery(
-                    "SELECT id, group_id, discipline_code FROM disciplines WHERE id = ?",
-                    id
-            );
-            if (rs.next()) {
-                return new Discipline(
-                        rs.getInt("id"),
-                        rs.getInt("group_id"),
-                        rs.getString("discipline_code")
-                );
-            }
+            return loadDisciplineById(id);
         } catch (Exception e) {
             logger.error("Error getting discipline by id: {}", id, e);
         }
         return null;
     }
 
+    /**
+     * Асинхронно получить дисциплину по ID (null, если её нет)
+     */
+    public CompletableFuture<Discipline> getDisciplineByIdAsync(int id) {
+        return ServiceExecutor.supply(() -> loadDisciplineById(id));
+    }
+
+    private Discipline loadDisciplineById(int id) throws SQLException {
+        return db.queryForObject(
+                "SELECT id, group_id, discipline_code FROM disciplines WHERE id = ?",
+                DISCIPLINE_MAPPER,
+                id
+        );
+    }
+
     /**
      * Добавить новую дисциплину
      */
     public void createDiscipline(Discipline discipline) throws Exception {
-        db.executeUpdate(
-                "INSERT INTO disciplines (group_id, discipline_code) VALUES (?, ?)",
-                discipline.getGroupId(),
-                discipline.getDisciplineCode()
-        );
+        try {
+            db.executeUpdate(
+                    "INSERT INTO disciplines (group_id, discipline_code) VALUES (?, ?)",
+                    discipline.getGroupId(),
+                    discipline.getDisciplineCode()
+            );
+        } finally {
+            cache.invalidateDisciplines(discipline.getGroupId());
+        }
         logger.info("Discipline created: {} for group {}", discipline.getDisciplineCode(), discipline.getGroupId());
     }
 
@@ -82,14 +104,14 @@ public class DisciplineService {
      * Удалить дисциплину
      */
     public void deleteDiscipline(int id) throws Exception {
-        // Удалить рейтинги
-        db.executeUpdate("DELETE FROM ratings WHERE discipline_id = ?", id);
-        
-        // Удалить сводки
-        db.executeUpdate("DELETE FROM summaries WHERE discipline_id = ?", id);
-        
-        // Удалить дисциплину
-        db.executeUpdate("DELETE FROM disciplines WHERE id = ?", id);
+        // Рейтинги и сводка удаляются каскадом (ON DELETE CASCADE) в том же операторе
+        Integer groupId = db.queryForObject(
+                "DELETE FROM disciplines WHERE id = ? RETURNING group_id", rs -> rs.getInt("group_id"), id
+        );
+        if (groupId != null) {
+            cache.invalidateDisciplines(groupId);
+        }
+        cache.invalidateRatings(id);
         logger.info("Discipline deleted: {}", id);
     }
 
@@ -97,11 +119,16 @@ public class DisciplineService {
      * Обновить дисциплину
      */
     public void updateDiscipline(Discipline discipline) throws Exception {
-        db.executeUpdate(
-                "UPDATE disciplines SET discipline_code = ? WHERE id = ?",
-                discipline.getDisciplineCode(),
-                discipline.getId()
-        );
+        try {
+            db.executeUpdate(
+                    "UPDATE disciplines SET discipline_code = ? WHERE id = ?",
+                    discipline.getDisciplineCode(),
+                    discipline.getId()
+            );
+        } finally {
+            // В том числе при ошибке: вызывающий мог уже изменить закэшированный объект
+            cache.invalidateDisciplines(discipline.getGroupId());
+        }
         logger.info("Discipline updated: {} (ID: {})", discipline.getDisciplineCode(), discipline.getId());
     }
 
@@ -110,12 +137,13 @@ public class DisciplineService {
      */
     public int getDisciplineCount(int groupId) {
         try {
-            ResultSet rs = db.executeQuery(
+            Integer count = db.queryForObject(
                     "SELECT COUNT(*) as count FROM disciplines WHERE group_id = ?",
+                    rs -> rs.getInt("count"),
                     groupId
             );
-            if (rs.next()) {
-                return rs.getInt("count");
+            if (count != null) {
+                return count;
             }
         } catch (Exception e) {
             logger.error("Error getting discipline count for group: {}", groupId, e);
@@ -4,9 +4,10 @@ import com.ratingsystem.models.Group;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Сервис для работы с группами
@@ -14,34 +15,46 @@ import java.util.List;
 public class GroupService {
 
     private static final Logger logger = LoggerFactory.getLogger(GroupService.class);
+
+    static final RowMapper<Group> GROUP_MAPPER = rs -> new Group(
+            rs.getInt("id"),
+            rs.getString("group_code"),
+            rs.getInt("student_count"),
+            rs.getInt("discipline_count")
+    );
+
     private DatabaseManager db;
+    private DataCache cache;
 
     public GroupService() {
         this.db = DatabaseManager.getInstance();
+        this.cache = DataCache.getInstance();
     }
 
     /**
-     * Получить все группы
+     * Получить все группы (через кэш, возвращается копия списка)
      */
     public List<Group> getAllGroups() {
-        List<Group> groups = new ArrayList<>();
         try {
-            ResultSet rs = db.executeQuery(
-                    "SELECT id, group_code, student_count, discipline_count FROM groups ORDER BY group_code"
-            );
-            while (rs.next()) {
-                Group group = new Group(
-                        rs.getInt("id"),
-                        rs.getString("group_code"),
-                        rs.getInt("student_count"),
-                        rs.getInt("discipline_count")
-                );
-                groups.add(group);
-            }
+            return loadAllGroups();
         } catch (Exception e) {
             logger.error("Error getting all groups", e);
         }
-        return groups;
+        return new ArrayList<>();
+    }
+
+    /**
+     * Асинхронно получить все группы. Ошибка БД завершает future исключительно
+     */
+    public CompletableFuture<List<Group>> getAllGroupsAsync() {
+        return ServiceExecutor.supply(this::loadAllGroups);
+    }
+
+    private List<Group> loadAllGroups() throws Exception {
+        return new ArrayList<>(cache.getAllGroups(() -> db.query(
+                "SELECT id, group_code, student_count, discipline_count FROM groups ORDER BY group_code",
+                GROUP_MAPPER
+        )));
     }
 
     /**
@@ -49,41 +62,38 @@ public class GroupService {
      */
     public Group getGroupById(int id) {
         try {
-            ResultSet rs = db.executeQuery(
-                    "SELECT id, group_code, student_count, discipline_count FROM groups WHERE id = ?",
-                    id
-            );
-            if (rs.next()) {
-                return new Group(
-                        rs.getInt("id"),
-                        rs.getString("group_code"),
-                        rs.getInt("student_count"),
-                        rs.getInt("discipline_count")
-                );
-            }
+            return loadGroupById(id);
         } catch (Exception e) {
             logger.error("Error getting group by id: {}", id, e);
         }
         return null;
     }
 
+    /**
+     * Асинхронно получить группу по ID (null, если её нет)
+     */
+    public CompletableFuture<Group> getGroupByIdAsync(int id) {
+        return ServiceExecutor.supply(() -> loadGroupById(id));
+    }
+
+    private Group loadGroupById(int id) throws SQLException {
+        return db.queryForObject(
+                "SELECT id, group_code, student_count, discipline_count FROM groups WHERE id = ?",
+                GROUP_MAPPER,
+                id
+        );
+    }
+
     /**
      * Получить группу по коду
      */
     public Group getGroupByCode(String code) {
         try {
-            ResultSet rs = db.executeQuery(
+            return db.queryForObject(
                     "SELECT id, group_code, student_count, discipline_count FROM groups WHERE group_code = ?",
+                    GROUP_MAPPER,
                     code
             );
-            if (rs.next()) {
-                return new Group(
-                        rs.getInt("id"),
-                        rs.getString("group_code"),
-                        rs.getInt("student_count"),
-                        rs.getInt("discipline_count")
-                );
-            }
         } catch (Exception e) {
             logger.error("Error getting group by code: {}", code, e);
         }
@@ -94,12 +104,16 @@ public class GroupService {
      * Добавить новую группу
      */
     public void createGroup(Group group) throws Exception {
-        db.executeUpdate(
-                "INSERT INTO groups (group_code, student_count, discipline_count) VALUES (?, ?, ?)",
-                group.getGroupCode(),
-                group.getStudentCount(),
-                group.getDisciplineCount()
-        );
+        try {
+            db.executeUpdate(
+                    "INSERT INTO groups (group_code, student_count, discipline_count) VALUES (?, ?, ?)",
+                    group.getGroupCode(),
+                    group.getStudentCount(),
+                    group.getDisciplineCount()
+            );
+        } finally {
+            cache.invalidateGroups();
+        }
         logger.info("Group created: {}", group.getGroupCode());
     }
 
@@ -107,12 +121,16 @@ public class GroupService {
      * Обновить группу
      */
     public void updateGroup(Group group) throws Exception {
-        db.executeUpdate(
-                "UPDATE groups SET student_count = ?, discipline_count = ? WHERE id = ?",
-                group.getStudentCount(),
-                group.getDisciplineCount(),
-                group.getId()
-        );
+        try {
+            db.executeUpdate(
+                    "UPDATE groups SET student_count = ?, discipline_count = ? WHERE id = ?",
+                    group.getStudentCount(),
+                    group.getDisciplineCount(),
+                    group.getId()
+            );
+        } finally {
+            cache.invalidateGroups();
+        }
         logger.info("Group updated: {}", group.getGroupCode());
     }
 
@@ -120,62 +138,55 @@ public class GroupService {
      * Удалить группу по ID
      */
     public void deleteGroupById(int groupId) throws Exception {
-        // Удалить рейтинги
-        ResultSet disciplines = db.executeQuery(
-                "SELECT id FROM disciplines WHERE group_id = ?", groupId
-        );
-        while (disciplines.next()) {
-            db.executeUpdate("DELETE FROM ratings WHERE discipline_id = ?", disciplines.getInt("id"));
+        if (deleteGroupWhere("id = ?", groupId)) {
+            logger.info("Group deleted: ID {}", groupId);
         }
-        
-        // Удалить дисциплины
-        db.executeUpdate("DELETE FROM disciplines WHERE group_id = ?", groupId);
-        
-        // Удалить сводки
-        db.executeUpdate("DELETE FROM summaries WHERE group_id = ?", groupId);
-        
-        // Удалить группу
-        db.executeUpdate("DELETE FROM groups WHERE id = ?", groupId);
-        logger.info("Group deleted: ID {}", groupId);
     }
 
     /**
      * Удалить группу по коду
      */
     public void deleteGroupByCode(String code) throws Exception {
-        // Сначала удалить все связанные данные
-        ResultSet rs = db.executeQuery("SELECT id FROM groups WHERE group_code = ?", code);
-        if (rs.next()) {
-            int groupId = rs.getInt("id");
-            
-            // Удалить рейтинги
-            ResultSet disciplines = db.executeQuery(
-                    "SELECT id FROM disciplines WHERE group_id = ?", groupId
-            );
-            while (disciplines.next()) {
-                db.executeUpdate("DELETE FROM ratings WHERE discipline_id = ?", disciplines.getInt("id"));
-            }
-            
-            // Удалить дисциплины
-            db.executeUpdate("DELETE FROM disciplines WHERE group_id = ?", groupId);
-            
-            // Удалить сводки
-            db.executeUpdate("DELETE FROM summaries WHERE group_id = ?", groupId);
-            
-            // Удалить группу
-            db.executeUpdate("DELETE FROM groups WHERE id = ?", groupId);
+        if (deleteGroupWhere("group_code = ?", code)) {
             logger.info("Group deleted: {}", code);
         }
     }
 
+    /**
+     * Удалить группу одним оператором: дисциплины, рейтинги и сводки удаляются каскадом (ON DELETE CASCADE).
+     * Основной SELECT видит снимок до удаления, поэтому возвращает дисциплины удалённой группы для сброса кэша
+     * @return была ли группа удалена
+     */
+    private boolean deleteGroupWhere(String condition, Object key) throws Exception {
+        List<int[]> deleted = db.query(
+                "WITH deleted AS (DELETE FROM groups WHERE " + condition + " RETURNING id) " +
+                "SELECT g.id AS group_id, d.id AS discipline_id " +
+                "FROM deleted g LEFT JOIN disciplines d ON d.group_id = g.id",
+                rs -> new int[]{rs.getInt("group_id"), rs.getInt("discipline_id")},
+                key
+        );
+        if (deleted.isEmpty()) {
+            return false;
+        }
+        cache.invalidateGroups();
+        cache.invalidateDisciplines(deleted.get(0)[0]);
+        for (int[] row : deleted) {
+            // discipline_id = 0 (NULL) - у группы не было дисциплин
+            if (row[1] != 0) {
+                cache.invalidateRatings(row[1]);
+            }
+        }
+        return true;
+    }
+
     /**
      * Получить количество групп
      */
     public int getGroupCount() {
         try {
-            ResultSet rs = db.executeQuery("SELECT COUNT(*) as count FROM groups");
-            if (rs.next()) {
-                return rs.getInt("count");
+            Integer count = db.queryForObject("SELECT COUNT(*) as count FROM groups", rs -> rs.getInt("count"));
+            if (count != null) {
+                return count;
             }
         } catch (Exception e) {
             logger.error("Error getting group count", e);
@@ -0,0 +1,215 @@
+package com.ratingsystem.database;
+
+import com.ratingsystem.models.Discipline;
+import com.ratingsystem.models.Group;
+import com.ratingsystem.models.Rating;
+import com.ratingsystem.utils.RatingsFormat;
+import com.ratingsystem.utils.ValidationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Импорт рейтингов из потока записей. Группы и дисциплины находятся по коду или создаются,
+ * рейтинги пишутся пакетами upsertRatings по мере чтения, так что в памяти не больше одного пакета.
+ * Записи проверяются по правилам ручного ввода (RatingsFormat.validate), в группе не больше
+ * ValidationUtils.MAX_DISCIPLINES дисциплин. В конце число студентов и дисциплин группы поднимается
+ * до импортированных (наибольший номер студента, число дисциплин), иначе ручной ввод в такую группу
+ * упирался бы в лимиты; каждое такое изменение возвращается в ImportResult для показа пользователю.
+ * Весь импорт - одна транзакция: при ошибке в середине файла ничего не сохраняется
+ */
+public class ImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportService.class);
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * Итог импорта
+     */
+    public static class ImportResult {
+        private final int rows;
+        private final int groups;
+        private final int disciplines;
+        private final List<String> limitChanges;
+
+        ImportResult(int rows, int groups, int disciplines, List<String> limitChanges) {
+            this.rows = rows;
+            this.groups = groups;
+            this.disciplines = disciplines;
+            this.limitChanges = limitChanges;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public int getGroups() {
+            return groups;
+        }
+
+        public int getDisciplines() {
+            return disciplines;
+        }
+
+        /**
+         * Созданные группы и поднятые импортом лимиты существующих, по строке на группу
+         */
+        public List<String> getLimitChanges() {
+            return limitChanges;
+        }
+    }
+
+    private final DatabaseManager db;
+    private final GroupService groupService;
+    private final DisciplineService disciplineService;
+    private final RatingService ratingService;
+
+    public ImportService() {
+        this.db = DatabaseManager.getInstance();
+        this.groupService = new GroupService();
+        this.disciplineService = new DisciplineService();
+        this.ratingService = new RatingService();
+    }
+
+    /**
+     * Импортировать записи. Итератор читается один раз, по порядку
+     */
+    public ImportResult importRatings(Iterator<RatingsFormat.Record> records) throws Exception {
+        return db.inTransaction(tx -> {
+            Map<String, Group> groups = new LinkedHashMap<>();
+            Set<String> createdGroups = new HashSet<>();
+            Map<String, Integer> maxStudentNumbers = new HashMap<>();
+            Map<String, Integer> disciplineIds = new HashMap<>();
+            List<Rating> batch = new ArrayList<>(BATCH_SIZE);
+            int disciplineId = 0;
+            int rows = 0;
+
+            while (records.hasNext()) {
+                RatingsFormat.Record record = records.next();
+                int row = rows + 1;
+                String error = RatingsFormat.validate(record);
+                if (error != null) {
+                    throw new IllegalArgumentException("Запись " + row + ": " + error);
+                }
+                Group group = groups.get(record.getGroupCode());
+                if (group == null) {
+                    group = groupService.getGroupByCode(record.getGroupCode());
+                    if (group == null) {
+                        group = createGroup(record);
+                        createdGroups.add(record.getGroupCode());
+                    }
+                    groups.put(record.getGroupCode(), group);
+                }
+                maxStudentNumbers.merge(record.getGroupCode(), record.getStudentNumber(), Math::max);
+                String key = group.getId() + ":" + record.getDisciplineCode().toLowerCase();
+                Integer id = disciplineIds.get(key);
+                if (id == null) {
+                    id = findOrCreateDiscipline(group, record.getDisciplineCode(), row);
+                    disciplineIds.put(key, id);
+                }
+
+                if (id != disciplineId || batch.size() >= BATCH_SIZE) {
+                    flush(disciplineId, batch);
+                    disciplineId = id;
+                }
+                batch.add(new Rating(id, record.getStudentNumber(), record.getStudentName(), record.getRating()));
+                rows++;
+            }
+            flush(disciplineId, batch);
+            List<String> limitChanges = new ArrayList<>();
+            for (Map.Entry<String, Group> entry : groups.entrySet()) {
+                String change = updateCounts(entry.getValue(), maxStudentNumbers.get(entry.getKey()),
+                        createdGroups.contains(entry.getKey()));
+                if (change != null) {
+                    limitChanges.add(change);
+                }
+            }
+
+            logger.info("Imported {} ratings into {} groups, {} disciplines", rows, groups.size(), disciplineIds.size());
+            return new ImportResult(rows, groups.size(), disciplineIds.size(), limitChanges);
+        });
+    }
+
+    private void flush(int disciplineId, List<Rating> batch) throws Exception {
+        if (!batch.isEmpty()) {
+            ratingService.upsertRatings(disciplineId, batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Поднять лимиты группы до импортированных данных; уменьшать их импорт не должен.
+     * Данные уже проверены, поэтому новые значения в пределах MAX_STUDENTS и MAX_DISCIPLINES
+     * @return описание изменения для пользователя или null
+     */
+    private String updateCounts(Group group, int maxStudentNumber, boolean created) throws Exception {
+        int disciplines = disciplineService.getDisciplinesByGroup(group.getId()).size();
+        int oldStudents = group.getStudentCount();
+        int oldDisciplines = group.getDisciplineCount();
+        if (oldStudents < maxStudentNumber || oldDisciplines < disciplines) {
+            group.setStudentCount(Math.max(oldStudents, maxStudentNumber));
+            group.setDisciplineCount(Math.max(oldDisciplines, disciplines));
+            groupService.updateGroup(group);
+        }
+        if (created) {
+            return "Группа " + group.getGroupCode() + " создана: студентов " + group.getStudentCount()
+                    + ", дисциплин " + group.getDisciplineCount();
+        }
+        if (group.getStudentCount() == oldStudents && group.getDisciplineCount() == oldDisciplines) {
+            return null;
+        }
+        logger.info("Import raised limits of group {}: students {} -> {}, disciplines {} -> {}", group.getGroupCode(),
+                oldStudents, group.getStudentCount(), oldDisciplines, group.getDisciplineCount());
+        return "Группа " + group.getGroupCode() + ": студентов " + oldStudents + " -> " + group.getStudentCount()
+                + ", дисциплин " + oldDisciplines + " -> " + group.getDisciplineCount();
+    }
+
+    /**
+     * Новая группа с допустимыми лимитами по первой записи; updateCounts поднимает их по остальным
+     */
+    private Group createGroup(RatingsFormat.Record record) throws Exception {
+        String code = record.getGroupCode();
+        groupService.createGroup(new Group(0, code, record.getStudentNumber(), 1));
+        Group group = groupService.getGroupByCode(code);
+        if (group == null) {
+            throw new IllegalStateException("Не удалось создать группу " + code);
+        }
+        logger.info("Created new group during import: {}", code);
+        return group;
+    }
+
+    private int findOrCreateDiscipline(Group group, String code, int row) throws Exception {
+        List<Discipline> existing = disciplineService.getDisciplinesByGroup(group.getId());
+        Discipline discipline = findDiscipline(existing, code);
+        if (discipline == null) {
+            if (existing.size() >= ValidationUtils.MAX_DISCIPLINES) {
+                throw new IllegalArgumentException("Запись " + row + ": в группе " + group.getGroupCode() + " уже "
+                        + existing.size() + " дисциплин, дисциплину " + code + " добавить нельзя (не больше "
+                        + ValidationUtils.MAX_DISCIPLINES + ")");
+            }
+            disciplineService.createDiscipline(new Discipline(0, group.getId(), code));
+            discipline = findDiscipline(disciplineService.getDisciplinesByGroup(group.getId()), code);
+            if (discipline == null) {
+                throw new IllegalStateException("Не удалось создать дисциплину " + code);
+            }
+        }
+        return discipline.getId();
+    }
+
+    private static Discipline findDiscipline(List<Discipline> disciplines, String code) {
+        for (Discipline d : disciplines) {
+            if (d.getDisciplineCode().equalsIgnoreCase(code)) {
+                return d;
+            }
+        }
+        return null;
+    }
+}
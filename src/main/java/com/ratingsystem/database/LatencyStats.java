@@ -0,0 +1,93 @@
+package com.ratingsystem.database;
+
+import java.util.Arrays;
+
+/**
+ * Перцентили времени выполнения по последним capacity замерам (кольцевой буфер)
+ */
+public class LatencyStats {
+
+    /**
+     * Снимок распределения, значения в миллисекундах
+     */
+    public static class Snapshot {
+        private final long count;
+        private final double p50;
+        private final double p90;
+        private final double p99;
+        private final double max;
+
+        Snapshot(long count, double p50, double p90, double p99, double max) {
+            this.count = count;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getP50() {
+            return p50;
+        }
+
+        public double getP90() {
+            return p90;
+        }
+
+        public double getP99() {
+            return p99;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d, p50=%.1f ms, p90=%.1f ms, p99=%.1f ms, max=%.1f ms",
+                    count, p50, p90, p99, max);
+        }
+    }
+
+    private final long[] samples;
+    private int next;
+    private int size;
+    private long count;
+
+    public LatencyStats(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+        count++;
+    }
+
+    /**
+     * Перцентили по сохранённым замерам; count - сколько замеров было всего
+     */
+    public Snapshot snapshot() {
+        long[] sorted;
+        long total;
+        synchronized (this) {
+            sorted = Arrays.copyOf(samples, size);
+            total = count;
+        }
+        if (sorted.length == 0) {
+            return new Snapshot(0, 0, 0, 0, 0);
+        }
+        Arrays.sort(sorted);
+        return new Snapshot(total, percentile(sorted, 0.50), percentile(sorted, 0.90),
+                percentile(sorted, 0.99), sorted[sorted.length - 1] / 1_000_000.0);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,122 @@
+package com.ratingsystem.database;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ограничение попыток входа по имени пользователя и по источнику (терминалу).
+ * Имя: после maxFailuresPerUser неудач в окне windowMillis блокируется на lockoutMillis,
+ * каждая следующая неудача удваивает блокировку (не больше maxLockoutMillis).
+ * Терминал общий для всех операторов, поэтому его лимит выше, а счётчик не растёт без конца:
+ * неудачи "вытекают" равномерно, maxFailuresPerSource за windowMillis, и блокировка всегда lockoutMillis
+ * без удвоения. Случайные опечатки в час пик не запирают терминал, перебор паролей всё равно упирается в лимит.
+ * Заблокированная попытка отклоняется до проверки BCrypt и не тратит процессор
+ */
+public class LoginThrottle {
+
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    private static class Attempts {
+        long windowStart;
+        int failures;
+        long blockedUntil;
+        // Счётчик источника с вытеканием
+        double level;
+    }
+
+    private final int maxFailuresPerUser;
+    private final int maxFailuresPerSource;
+    private final long windowMillis;
+    private final long lockoutMillis;
+    private final long maxLockoutMillis;
+    private final Map<String, Attempts> attempts = new ConcurrentHashMap<>();
+
+    public LoginThrottle(int maxFailuresPerUser, int maxFailuresPerSource, long windowMillis,
+                         long lockoutMillis, long maxLockoutMillis) {
+        this.maxFailuresPerUser = maxFailuresPerUser;
+        this.maxFailuresPerSource = maxFailuresPerSource;
+        this.windowMillis = windowMillis;
+        this.lockoutMillis = lockoutMillis;
+        this.maxLockoutMillis = maxLockoutMillis;
+    }
+
+    /**
+     * Сколько миллисекунд ждать до следующей попытки; 0 - попытка разрешена
+     */
+    public long getRetryAfterMillis(String username, String source) {
+        long now = System.currentTimeMillis();
+        return Math.max(remaining(userKey(username), now), remaining(sourceKey(source), now));
+    }
+
+    public void recordFailure(String username, String source) {
+        long now = System.currentTimeMillis();
+        fail(userKey(username), maxFailuresPerUser, now);
+        failDecaying(sourceKey(source), maxFailuresPerSource, now);
+        if (attempts.size() > CLEANUP_THRESHOLD) {
+            attempts.entrySet().removeIf(e -> isExpired(e.getValue(), now));
+        }
+    }
+
+    /**
+     * Успешный вход сбрасывает счётчик пользователя. Счётчик источника остаётся:
+     * иначе знание одного пароля позволяло бы перебирать остальные с того же терминала
+     */
+    public void recordSuccess(String username) {
+        attempts.remove(userKey(username));
+    }
+
+    private long remaining(String key, long now) {
+        Attempts a = attempts.get(key);
+        if (a == null) {
+            return 0;
+        }
+        synchronized (a) {
+            return Math.max(0, a.blockedUntil - now);
+        }
+    }
+
+    private void fail(String key, int maxFailures, long now) {
+        Attempts a = attempts.computeIfAbsent(key, k -> new Attempts());
+        synchronized (a) {
+            if (now - a.windowStart > windowMillis && now >= a.blockedUntil) {
+                a.windowStart = now;
+                a.failures = 0;
+            }
+            a.failures++;
+            if (a.failures >= maxFailures) {
+                int doublings = Math.min(a.failures - maxFailures, 20);
+                a.blockedUntil = now + Math.min(maxLockoutMillis, lockoutMillis << doublings);
+            }
+        }
+    }
+
+    /**
+     * Неудача на общем источнике: с прошлой неудачи уровень уменьшился пропорционально прошедшему времени
+     */
+    private void failDecaying(String key, int maxFailures, long now) {
+        Attempts a = attempts.computeIfAbsent(key, k -> new Attempts());
+        synchronized (a) {
+            double leaked = (double) (now - a.windowStart) * maxFailures / windowMillis;
+            a.level = Math.max(0, a.level - leaked) + 1;
+            a.windowStart = now;
+            // Дробная часть - уже вытекшее: maxFailures неудач подряд дают блокировку
+            if (a.level > maxFailures - 1) {
+                a.blockedUntil = now + lockoutMillis;
+            }
+        }
+    }
+
+    private boolean isExpired(Attempts a, long now) {
+        synchronized (a) {
+            return now - a.windowStart > windowMillis && now >= a.blockedUntil;
+        }
+    }
+
+    private static String userKey(String username) {
+        return "user:" + username.toLowerCase();
+    }
+
+    private static String sourceKey(String source) {
+        return "source:" + source;
+    }
+}
@@ -0,0 +1,20 @@
+package com.ratingsystem.database;
+
+/**
+ * Попытка входа отклонена из-за слишком большого числа неудачных попыток
+ */
+public class LoginThrottledException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterMillis;
+
+    public LoginThrottledException(String username, long retryAfterMillis) {
+        super("Too many failed login attempts for '" + username + "', retry after " + retryAfterMillis + " ms");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,165 @@
+package com.ratingsystem.database;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Потокобезопасный LRU-кэш с ограничением по размеру и временем жизни записей.
+ * Значения загружаются через getOrLoad; если во время загрузки была инвалидация,
+ * результат отдаётся вызывающему, но в кэш не попадает (иначе туда вернутся устаревшие данные)
+ */
+public class LruCache<K, V> {
+
+    /**
+     * Функция загрузки значения при промахе
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws Exception;
+    }
+
+    /**
+     * Счётчики попаданий/промахов кэша
+     */
+    public static class Stats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private final LongAdder invalidations = new LongAdder();
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        public long getEvictions() {
+            return evictions.sum();
+        }
+
+        public long getInvalidations() {
+            return invalidations.sum();
+        }
+
+        public double getHitRate() {
+            long h = getHits();
+            long total = h + getMisses();
+            return total == 0 ? 0.0 : (double) h / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, evictions=%d, invalidations=%d, hitRate=%.2f",
+                    getHits(), getMisses(), getEvictions(), getInvalidations(), getHitRate());
+        }
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long expiresAtNanos;
+
+        Entry(V value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Stats stats = new Stats();
+    private final Map<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long generation;
+
+    public LruCache(String name, int maxSize, long ttlMillis) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    /**
+     * Значение из кэша или null, если его нет либо истёк срок жизни
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAtNanos >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Получить значение из кэша, при промахе загрузить и запомнить
+     */
+    public V getOrLoad(K key, Loader<V> loader) throws Exception {
+        long startGeneration;
+        synchronized (this) {
+            V cached = get(key);
+            if (cached != null) {
+                stats.hits.increment();
+                return cached;
+            }
+            stats.misses.increment();
+            startGeneration = generation;
+        }
+        // Загрузка идёт без блокировки, чтобы медленный запрос не задерживал остальные ключи
+        V loaded = loader.load();
+        if (loaded != null && maxSize > 0) {
+            synchronized (this) {
+                if (generation == startGeneration) {
+                    entries.put(key, new Entry<>(loaded, System.nanoTime() + ttlNanos));
+                    evictIfNeeded();
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            stats.evictions.increment();
+        }
+    }
+
+    /**
+     * Удалить запись. Загрузки, начатые до вызова, свой результат в кэш не положат
+     */
+    public synchronized void invalidate(K key) {
+        generation++;
+        if (entries.remove(key) != null) {
+            stats.invalidations.increment();
+        }
+    }
+
+    /**
+     * Очистить кэш целиком
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        stats.invalidations.add(entries.size());
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Stats getStats() {
+        return stats;
+    }
+}
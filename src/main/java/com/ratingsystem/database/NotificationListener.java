@@ -0,0 +1,137 @@
+package com.ratingsystem.database;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntPredicate;
+
+/**
+ * Отдельное (не из пула) соединение, подписанное через LISTEN на канал изменений.
+ * Фоновый поток забирает уведомления, разбирает их в ChangeEvent и рассылает подписчикам,
+ * при обрыве переподключается и просит подписчиков перечитать данные
+ */
+public class NotificationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationListener.class);
+    static final String CHANNEL = "rating_system_changes";
+    private static final int POLL_TIMEOUT_MILLIS = 1000;
+    private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final IntPredicate localBackend;
+    private final List<DataChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * @param localBackend распознаёт PID серверных процессов соединений нашего пула
+     */
+    NotificationListener(String url, String user, String password, IntPredicate localBackend) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.localBackend = localBackend;
+    }
+
+    void addListener(DataChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(DataChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "db-change-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    private void run() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, user, password)) {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("LISTEN " + CHANNEL);
+                }
+                logger.info("Listening for data changes on channel {}", CHANNEL);
+                if (reconnect) {
+                    fireResync();
+                }
+                reconnect = true;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        dispatch(notification);
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                logger.warn("Change listener connection lost, reconnecting in {} ms: {}",
+                        RECONNECT_DELAY_MILLIS, e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException ie) {
+                    break;
+                }
+            }
+        }
+        logger.info("Change listener stopped");
+    }
+
+    private void dispatch(PGNotification notification) {
+        ChangeEvent event = ChangeEvent.parse(notification.getParameter(),
+                localBackend.test(notification.getPID()));
+        if (event == null) {
+            logger.warn("Ignoring malformed change notification: {}", notification.getParameter());
+            return;
+        }
+        logger.debug("Data change: {}", event);
+        for (DataChangeListener listener : listeners) {
+            try {
+                listener.onChange(event);
+            } catch (RuntimeException e) {
+                logger.error("Change listener failed for {}", event, e);
+            }
+        }
+    }
+
+    private void fireResync() {
+        for (DataChangeListener listener : listeners) {
+            try {
+                listener.onResync();
+            } catch (RuntimeException e) {
+                logger.error("Change listener failed on resync", e);
+            }
+        }
+    }
+}
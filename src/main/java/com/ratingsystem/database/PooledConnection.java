@@ -0,0 +1,76 @@
+package com.ratingsystem.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Физическое соединение, принадлежащее пулу
+ */
+public class PooledConnection {
+
+    private final Connection connection;
+    private final StatementCache statementCache;
+    private final int backendPid;
+    private long lastUsedNanos;
+    private boolean broken;
+
+    PooledConnection(Connection connection, int backendPid, int statementCacheSize, StatementCache.Stats stats) {
+        this.connection = connection;
+        this.backendPid = backendPid;
+        this.statementCache = new StatementCache(connection, statementCacheSize, stats);
+        this.lastUsedNanos = System.nanoTime();
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * PID серверного процесса PostgreSQL, обслуживающего соединение
+     */
+    int getBackendPid() {
+        return backendPid;
+    }
+
+    /**
+     * Подготовленный оператор из кэша соединения; вернуть через releaseStatement
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        return statementCache.prepare(sql);
+    }
+
+    void releaseStatement(PreparedStatement statement) {
+        if (statement != null) {
+            statementCache.release(statement);
+        }
+    }
+
+    /**
+     * Отметить соединение как сломанное (ошибка уровня соединения, SQLState 08xxx),
+     * такое соединение не возвращается в пул
+     */
+    void checkError(SQLException e) {
+        String state = e.getSQLState();
+        if (state != null && state.startsWith("08")) {
+            broken = true;
+        }
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+
+    void touch() {
+        lastUsedNanos = System.nanoTime();
+    }
+
+    long idleMillis() {
+        return (System.nanoTime() - lastUsedNanos) / 1_000_000L;
+    }
+
+    void close() throws SQLException {
+        statementCache.clear();
+        connection.close();
+    }
+}
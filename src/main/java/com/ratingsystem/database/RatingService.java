@@ -4,11 +4,13 @@ import com.ratingsystem.models.Rating;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * Сервис для работы с рейтингами
@@ -16,62 +18,132 @@ import java.util.Map;
 public class RatingService {
 
     private static final Logger logger = LoggerFactory.getLogger(RatingService.class);
+
+    static final RowMapper<Rating> RATING_MAPPER = rs -> new Rating(
+            rs.getInt("id"),
+            rs.getInt("discipline_id"),
+            rs.getInt("student_number"),
+            rs.getString("student_name"),
+            rs.getDouble("rating")
+    );
+
     private DatabaseManager db;
+    private DataCache cache;
 
     public RatingService() {
         this.db = DatabaseManager.getInstance();
+        this.cache = DataCache.getInstance();
     }
 
     /**
-     * Получить все рейтинги для дисциплины
+     * Получить все рейтинги для дисциплины (через кэш, возвращается копия списка)
      */
     public List<Rating> getRatingsByDiscipline(int disciplineId) {
-        List<Rating> ratings = new ArrayList<>();
         try {
-            logger.info("Getting ratings for discipline: {}", disciplineId);
-            ResultSet rs = db.executeQuery(
-                    "SELECT id, discipline_id, student_number, student_name, rating FROM ratings WHERE discipline_id = ? ORDER BY student_number",
-                    disciplineId
-            );
-            int count = 0;
-            while (rs.next()) {
-                count++;
-                Rating rating = new Rating(
-                        rs.getInt("id"),
-                        rs.getInt("discipline_id"),
-                        rs.getInt("student_number"),
-                        rs.getString("student_name"),
-                        rs.getDouble("rating")
-                );
-                logger.debug("Loaded rating: student={}, name={}, rating={}", rating.getStudentNumber(), rating.getStudentName(), rating.getRating());
-                ratings.add(rating);
-            }
-            rs.close();
-            logger.info("Loaded {} ratings for discipline {}", count, disciplineId);
+            return loadRatingsByDiscipline(disciplineId);
         } catch (Exception e) {
             logger.error("Error getting ratings for discipline: {}", disciplineId, e);
         }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Асинхронно получить все рейтинги дисциплины. Ошибка БД завершает future исключительно
+     */
+    public CompletableFuture<List<Rating>> getRatingsByDisciplineAsync(int disciplineId) {
+        return ServiceExecutor.supply(() -> loadRatingsByDiscipline(disciplineId));
+    }
+
+    private List<Rating> loadRatingsByDiscipline(int disciplineId) throws Exception {
+        logger.info("Getting ratings for discipline: {}", disciplineId);
+        List<Rating> ratings = new ArrayList<>(cache.getRatings(disciplineId, () -> db.query(
+                "SELECT id, discipline_id, student_number, student_name, rating FROM ratings WHERE discipline_id = ? ORDER BY student_number",
+                RATING_MAPPER,
+                disciplineId
+        )));
+        logger.info("Loaded {} ratings for discipline {}", ratings.size(), disciplineId);
         return ratings;
     }
 
+    /**
+     * Страница рейтингов дисциплины: не больше limit строк с номером студента больше afterStudentNumber.
+     * Keyset-пагинация по индексу (discipline_id, student_number) - стоимость страницы не зависит
+     * от её номера. Кэш не используется: в нём хранятся только полные списки
+     */
+    public List<Rating> getRatingsPage(int disciplineId, int afterStudentNumber, int limit) {
+        try {
+            return loadRatingsPage(disciplineId, afterStudentNumber, limit);
+        } catch (Exception e) {
+            logger.error("Error getting ratings page for discipline: {}", disciplineId, e);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Асинхронно получить страницу рейтингов дисциплины
+     */
+    public CompletableFuture<List<Rating>> getRatingsPageAsync(int disciplineId, int afterStudentNumber, int limit) {
+        return ServiceExecutor.supply(() -> loadRatingsPage(disciplineId, afterStudentNumber, limit));
+    }
+
+    private List<Rating> loadRatingsPage(int disciplineId, int afterStudentNumber, int limit) throws SQLException {
+        return db.query(
+                "SELECT id, discipline_id, student_number, student_name, rating FROM ratings " +
+                "WHERE discipline_id = ? AND student_number > ? ORDER BY student_number LIMIT ?",
+                RATING_MAPPER,
+                disciplineId, afterStudentNumber, limit
+        );
+    }
+
+    /**
+     * Потоково прочитать рейтинги дисциплины через серверный курсор.
+     * Поток держит соединение из пула, его нужно закрыть (try-with-resources)
+     */
+    public Stream<Rating> streamRatingsByDiscipline(int disciplineId) throws SQLException {
+        return db.stream(
+                "SELECT id, discipline_id, student_number, student_name, rating FROM ratings WHERE discipline_id = ? ORDER BY student_number",
+                RATING_MAPPER,
+                disciplineId
+        );
+    }
+
+    /**
+     * Получить рейтинг по ID
+     */
+    public Rating getRatingById(int id) {
+        try {
+            return loadRatingById(id);
+        } catch (Exception e) {
+            logger.error("Error getting rating by id: {}", id, e);
+        }
+        return null;
+    }
+
+    /**
+     * Асинхронно получить рейтинг по ID (null, если его нет)
+     */
+    public CompletableFuture<Rating> getRatingByIdAsync(int id) {
+        return ServiceExecutor.supply(() -> loadRatingById(id));
+    }
+
+    private Rating loadRatingById(int id) throws SQLException {
+        return db.queryForObject(
+                "SELECT id, discipline_id, student_number, student_name, rating FROM ratings WHERE id = ?",
+                RATING_MAPPER,
+                id
+        );
+    }
+
     /**
      * Получить рейтинг конкретного студента по дисциплине
      */
     public Rating getRatingByStudent(int disciplineId, int studentNumber) {
         try {
-            ResultSet rs = db.executeQuery(
+            return db.queryForObject(
                     "SELECT id, discipline_id, student_number, student_name, rating FROM ratings WHERE discipline_id = ? AND student_number = ?",
+                    RATING_MAPPER,
                     disciplineId, studentNumber
             );
-            if (rs.next()) {
-                return new Rating(
-                        rs.getInt("id"),
-                        rs.getInt("discipline_id"),
-                        rs.getInt("student_number"),
-                        rs.getString("student_name"),
-                        rs.getDouble("rating")
-                );
-            }
         } catch (Exception e) {
             logger.error("Error getting rating by student", e);
         }
@@ -82,28 +154,67 @@ public class RatingService {
      * Добавить рейтинг студента
      */
     public void addRating(Rating rating) throws Exception {
-        db.executeUpdate(
-                "INSERT INTO ratings (discipline_id, student_number, student_name, rating) VALUES (?, ?, ?, ?)",
-                rating.getDisciplineId(),
-                rating.getStudentNumber(),
-                rating.getStudentName(),
-                rating.getRating()
-        );
-        updateSummary(rating.getDisciplineId());
+        try {
+            db.executeUpdate(
+                    "INSERT INTO ratings (discipline_id, student_number, student_name, rating) VALUES (?, ?, ?, ?)",
+                    rating.getDisciplineId(),
+                    rating.getStudentNumber(),
+                    rating.getStudentName(),
+                    rating.getRating()
+            );
+        } finally {
+            cache.invalidateRatings(rating.getDisciplineId());
+        }
         logger.info("Rating added: student {} discipline {}", rating.getStudentNumber(), rating.getDisciplineId());
     }
 
+    /**
+     * Вставить или обновить рейтинги дисциплины одним пакетом в одной транзакции.
+     * Повторы номера студента в пакете схлопываются, сохраняется последний: с reWriteBatchedInserts
+     * пакет уходит одним многострочным INSERT, и ON CONFLICT DO UPDATE не может изменить строку дважды.
+     * Сводка обновляется триггером одной дельтой на оператор
+     */
+    public void upsertRatings(int disciplineId, List<Rating> ratings) throws Exception {
+        Map<Integer, Rating> unique = new LinkedHashMap<>();
+        for (Rating rating : ratings) {
+            unique.put(rating.getStudentNumber(), rating);
+        }
+        List<Object[]> batch = new ArrayList<>(unique.size());
+        for (Rating rating : unique.values()) {
+            batch.add(new Object[]{
+                    disciplineId,
+                    rating.getStudentNumber(),
+                    rating.getStudentName(),
+                    rating.getRating()
+            });
+        }
+        try {
+            db.executeBatch(
+                    "INSERT INTO ratings (discipline_id, student_number, student_name, rating) VALUES (?, ?, ?, ?) " +
+                    "ON CONFLICT (discipline_id, student_number) DO UPDATE SET " +
+                    "student_name = EXCLUDED.student_name, rating = EXCLUDED.rating, updated_at = CURRENT_TIMESTAMP",
+                    batch
+            );
+        } finally {
+            cache.invalidateRatings(disciplineId);
+        }
+        logger.info("Upserted {} ratings for discipline {}", batch.size(), disciplineId);
+    }
+
     /**
      * Обновить рейтинг студента
      */
     public void updateRating(Rating rating) throws Exception {
-        db.executeUpdate(
-                "UPDATE ratings SET rating = ?, student_name = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?",
-                rating.getRating(),
-                rating.getStudentName(),
-                rating.getId()
-        );
-        updateSummary(rating.getDisciplineId());
+        try {
+            db.executeUpdate(
+                    "UPDATE ratings SET rating = ?, student_name = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?",
+                    rating.getRating(),
+                    rating.getStudentName(),
+                    rating.getId()
+            );
+        } finally {
+            cache.invalidateRatings(rating.getDisciplineId());
+        }
         logger.info("Rating updated: {}", rating.getId());
     }
 
@@ -111,59 +222,51 @@ public class RatingService {
      * Удалить рейтинг
      */
     public void deleteRating(int id) throws Exception {
-        // Получить discipline_id перед удалением
-        ResultSet rs = db.executeQuery("SELECT discipline_id FROM ratings WHERE id = ?", id);
-        int disciplineId = 0;
-        if (rs.next()) {
-            disciplineId = rs.getInt("discipline_id");
-        }
-        
-        db.executeUpdate("DELETE FROM ratings WHERE id = ?", id);
-        if (disciplineId > 0) {
-            updateSummary(disciplineId);
+        // RETURNING сообщает дисциплину, чей кэш нужно сбросить, без отдельного запроса
+        Integer disciplineId = db.queryForObject(
+                "DELETE FROM ratings WHERE id = ? RETURNING discipline_id", rs -> rs.getInt("discipline_id"), id
+        );
+        if (disciplineId != null) {
+            cache.invalidateRatings(disciplineId);
         }
         logger.info("Rating deleted: {}", id);
     }
 
     /**
-     * Получить средний рейтинг по дисциплине
+     * Получить средний рейтинг по дисциплине (из предрассчитанной сводки)
      */
     public double getAverageRating(int disciplineId) {
         try {
-            ResultSet rs = db.executeQuery(
-                    "SELECT AVG(rating) as avg_rating FROM ratings WHERE discipline_id = ?",
-                    disciplineId
-            );
-            if (rs.next()) {
-                double avg = rs.getDouble("avg_rating");
-                return Double.isNaN(avg) ? 0.0 : avg;
-            }
+            return loadAverageRating(disciplineId);
         } catch (Exception e) {
             logger.error("Error getting average rating for discipline: {}", disciplineId, e);
         }
         return 0.0;
     }
 
+    /**
+     * Асинхронно получить средний рейтинг по дисциплине
+     */
+    public CompletableFuture<Double> getAverageRatingAsync(int disciplineId) {
+        return ServiceExecutor.supply(() -> loadAverageRating(disciplineId));
+    }
+
+    private double loadAverageRating(int disciplineId) throws SQLException {
+        Double avg = db.queryForObject(
+                "SELECT rating_sum / NULLIF(rating_count, 0) as avg_rating FROM summaries WHERE discipline_id = ?",
+                rs -> rs.getDouble("avg_rating"),
+                disciplineId
+        );
+        return avg == null || Double.isNaN(avg) ? 0.0 : avg;
+    }
+
     /**
      * Получить сводку рейтингов по дисциплинам для группы
      */
     public Map<String, Double> getSummaryByGroup(int groupId) {
-        Map<String, Double> summary = new HashMap<>();
+        Map<String, Double> summary = new LinkedHashMap<>();
         try {
-            ResultSet rs = db.executeQuery(
-                    "SELECT d.discipline_code, AVG(r.rating) as avg_rating " +
-                    "FROM disciplines d " +
-                    "LEFT JOIN ratings r ON d.id = r.discipline_id " +
-                    "WHERE d.group_id = ? " +
-                    "GROUP BY d.id, d.discipline_code " +
-                    "ORDER BY d.discipline_code",
-                    groupId
-            );
-            while (rs.next()) {
-                String disciplineCode = rs.getString("discipline_code");
-                double avgRating = rs.getDouble("avg_rating");
-                summary.put(disciplineCode, Double.isNaN(avgRating) ? 0.0 : avgRating);
-            }
+            loadSummaryByGroup(groupId, summary);
         } catch (Exception e) {
             logger.error("Error getting summary by group: {}", groupId, e);
         }
@@ -171,43 +274,31 @@ public class RatingService {
     }
 
     /**
-     * Обновить/создать сводку для дисциплины
+     * Асинхронно получить сводку рейтингов группы. Ошибка БД завершает future исключительно,
+     * а не отдаёт частично заполненную сводку
      */
-    private void updateSummary(int disciplineId) {
-        try {
-            // Получить информацию о дисциплине и группе
-            ResultSet rs = db.executeQuery(
-                    "SELECT d.group_id, d.id FROM disciplines d WHERE d.id = ?",
-                    disciplineId
-            );
-            
-            if (rs.next()) {
-                int groupId = rs.getInt("group_id");
-                double avgRating = getAverageRating(disciplineId);
-                
-                // Проверить, существует ли запись в summaries
-                ResultSet checkRs = db.executeQuery(
-                        "SELECT id FROM summaries WHERE group_id = ? AND discipline_id = ?",
-                        groupId, disciplineId
-                );
-                
-                if (checkRs.next()) {
-                    // Обновить
-                    db.executeUpdate(
-                            "UPDATE summaries SET avg_rating = ? WHERE group_id = ? AND discipline_id = ?",
-                            avgRating, groupId, disciplineId
-                    );
-                } else {
-                    // Вставить
-                    db.executeUpdate(
-                            "INSERT INTO summaries (group_id, discipline_id, avg_rating) VALUES (?, ?, ?)",
-                            groupId, disciplineId, avgRating
-                    );
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Error updating summary for discipline: {}", disciplineId, e);
-        }
+    public CompletableFuture<Map<String, Double>> getSummaryByGroupAsync(int groupId) {
+        return ServiceExecutor.supply(() -> {
+            Map<String, Double> summary = new LinkedHashMap<>();
+            loadSummaryByGroup(groupId, summary);
+            return summary;
+        });
+    }
+
+    private void loadSummaryByGroup(int groupId, Map<String, Double> summary) throws SQLException {
+        db.forEachRow(
+                "SELECT d.discipline_code, COALESCE(s.rating_sum / NULLIF(s.rating_count, 0), 0) as avg_rating " +
+                "FROM disciplines d " +
+                "LEFT JOIN summaries s ON s.discipline_id = d.id " +
+                "WHERE d.group_id = ? " +
+                "ORDER BY d.discipline_code",
+                rs -> {
+                    double avgRating = rs.getDouble("avg_rating");
+                    return Map.entry(rs.getString("discipline_code"), Double.isNaN(avgRating) ? 0.0 : avgRating);
+                },
+                entry -> summary.put(entry.getKey(), entry.getValue()),
+                groupId
+        );
     }
 
     /**
@@ -215,12 +306,13 @@ public class RatingService {
      */
     public int getRatingCount(int disciplineId) {
         try {
-            ResultSet rs = db.executeQuery(
-                    "SELECT COUNT(*) as count FROM ratings WHERE discipline_id = ?",
+            Integer count = db.queryForObject(
+                    "SELECT rating_count as count FROM summaries WHERE discipline_id = ?",
+                    rs -> rs.getInt("count"),
                     disciplineId
             );
-            if (rs.next()) {
-                return rs.getInt("count");
+            if (count != null) {
+                return count;
             }
         } catch (Exception e) {
             logger.error("Error getting rating count for discipline: {}", disciplineId, e);
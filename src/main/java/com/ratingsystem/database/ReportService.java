@@ -0,0 +1,99 @@
+package com.ratingsystem.database;
+
+import com.ratingsystem.models.Discipline;
+import com.ratingsystem.models.Group;
+import com.ratingsystem.models.Rating;
+import com.ratingsystem.models.ReportRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.stream.Stream;
+
+/**
+ * Сервис для построения отчётов: дерево группа -> дисциплина -> рейтинг
+ * читается одним упорядоченным JOIN-запросом вместо запроса на каждую дисциплину
+ */
+public class ReportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportService.class);
+
+    private static final String REPORT_SQL =
+            "SELECT g.id AS group_id, g.group_code, g.student_count, g.discipline_count, " +
+            "d.id AS discipline_id, d.discipline_code, " +
+            "r.id AS rating_id, r.student_number, r.student_name, r.rating " +
+            "FROM groups g " +
+            "LEFT JOIN disciplines d ON d.group_id = g.id " +
+            "LEFT JOIN ratings r ON r.discipline_id = d.id ";
+
+    private static final String ORDER_BY = "ORDER BY g.group_code, d.discipline_code, r.student_number";
+
+    private DatabaseManager db;
+
+    public ReportService() {
+        this.db = DatabaseManager.getInstance();
+    }
+
+    /**
+     * Потоково прочитать отчёт по одной группе.
+     * Поток держит соединение из пула, его нужно закрыть (try-with-resources)
+     */
+    public Stream<ReportRow> streamGroupReport(int groupId) throws SQLException {
+        logger.info("Streaming report for group: {}", groupId);
+        return db.stream(REPORT_SQL + "WHERE g.id = ? " + ORDER_BY, new ReportRowMapper(), groupId);
+    }
+
+    /**
+     * Потоково прочитать отчёт по всем группам
+     */
+    public Stream<ReportRow> streamAllGroupsReport() throws SQLException {
+        logger.info("Streaming report for all groups");
+        return db.stream(REPORT_SQL + ORDER_BY, new ReportRowMapper());
+    }
+
+    /**
+     * Строки приходят упорядоченными, поэтому объекты группы и дисциплины
+     * переиспользуются, пока не сменится их id
+     */
+    private static class ReportRowMapper implements RowMapper<ReportRow> {
+
+        private Group group;
+        private Discipline discipline;
+
+        @Override
+        public ReportRow mapRow(ResultSet rs) throws SQLException {
+            int groupId = rs.getInt("group_id");
+            if (group == null || group.getId() != groupId) {
+                group = new Group(
+                        groupId,
+                        rs.getString("group_code"),
+                        rs.getInt("student_count"),
+                        rs.getInt("discipline_count")
+                );
+                discipline = null;
+            }
+
+            int disciplineId = rs.getInt("discipline_id");
+            if (rs.wasNull()) {
+                return new ReportRow(group, null, null);
+            }
+            if (discipline == null || discipline.getId() != disciplineId) {
+                discipline = new Discipline(disciplineId, groupId, rs.getString("discipline_code"));
+            }
+
+            int ratingId = rs.getInt("rating_id");
+            if (rs.wasNull()) {
+                return new ReportRow(group, discipline, null);
+            }
+            Rating rating = new Rating(
+                    ratingId,
+                    disciplineId,
+                    rs.getInt("student_number"),
+                    rs.getString("student_name"),
+                    rs.getDouble("rating")
+            );
+            return new ReportRow(group, discipline, rating);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.ratingsystem.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Преобразование текущей строки ResultSet в объект модели
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    T mapRow(ResultSet rs) throws SQLException;
+}
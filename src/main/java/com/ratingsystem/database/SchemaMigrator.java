@@ -0,0 +1,221 @@
+package com.ratingsystem.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Версионные миграции схемы БД.
+ * Скрипты лежат в ресурсах db/migration/V&lt;N&gt;__&lt;описание&gt;.sql, порядок задаёт migrations.txt.
+ * Применённые версии с контрольными суммами хранятся в schema_version: если схема актуальна,
+ * запуск обходится одним SELECT без DDL. Иначе недостающие скрипты применяются одной транзакцией
+ * под advisory-блокировкой, чтобы одновременно стартующие клиенты не мигрировали параллельно
+ */
+public class SchemaMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+    private static final String LOCATION = "db/migration/";
+    private static final String INDEX = LOCATION + "migrations.txt";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final String UNDEFINED_TABLE = "42P01";
+    // Произвольный ключ pg_advisory_xact_lock, общий для всех экземпляров приложения
+    private static final long LOCK_KEY = 0x52415449_4E47L;
+
+    private static final String CREATE_VERSION_TABLE =
+            "CREATE TABLE IF NOT EXISTS schema_version (" +
+            "  version INTEGER PRIMARY KEY," +
+            "  description VARCHAR(255) NOT NULL," +
+            "  checksum BIGINT NOT NULL," +
+            "  execution_ms INTEGER NOT NULL," +
+            "  installed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+            ")";
+
+    /**
+     * Скрипт миграции из ресурсов
+     */
+    static class Migration {
+        final int version;
+        final String description;
+        final String sql;
+        final long checksum;
+
+        Migration(int version, String description, String sql) {
+            this.version = version;
+            this.description = description;
+            this.sql = sql;
+            this.checksum = checksum(sql);
+        }
+    }
+
+    private final List<Migration> migrations;
+
+    public SchemaMigrator() {
+        this.migrations = loadMigrations();
+    }
+
+    /**
+     * Применить недостающие миграции. Соединение должно быть в режиме autocommit
+     */
+    public void migrate(Connection connection) throws SQLException {
+        Map<Integer, Long> applied = readApplied(connection);
+        if (applied != null && isUpToDate(applied)) {
+            logger.info("Database schema is up to date (version {})", latestVersion());
+            return;
+        }
+
+        connection.setAutoCommit(false);
+        try {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("SELECT pg_advisory_xact_lock(" + LOCK_KEY + ")");
+                stmt.execute(CREATE_VERSION_TABLE);
+            }
+            // Пока ждали блокировку, схему мог обновить другой клиент
+            applied = readApplied(connection);
+            int count = 0;
+            for (Migration migration : migrations) {
+                if (!applied.containsKey(migration.version)) {
+                    apply(connection, migration);
+                    count++;
+                }
+            }
+            connection.commit();
+            logger.info("Database schema migrated to version {} ({} migrations applied)", latestVersion(), count);
+        } catch (SQLException | RuntimeException e) {
+            DatabaseManager.rollbackQuietly(connection);
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Применённые версии и их контрольные суммы; null, если таблицы schema_version ещё нет
+     */
+    private Map<Integer, Long> readApplied(Connection connection) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getLong(2));
+            }
+        } catch (SQLException e) {
+            if (UNDEFINED_TABLE.equals(e.getSQLState()) && connection.getAutoCommit()) {
+                return null;
+            }
+            throw e;
+        }
+        return applied;
+    }
+
+    /**
+     * Все ли скрипты применены. Изменённый после применения скрипт - ошибка:
+     * его новое содержимое на существующих базах никогда не выполнится
+     */
+    private boolean isUpToDate(Map<Integer, Long> applied) {
+        boolean upToDate = true;
+        for (Migration migration : migrations) {
+            Long checksum = applied.get(migration.version);
+            if (checksum == null) {
+                upToDate = false;
+            } else if (checksum != migration.checksum) {
+                throw new IllegalStateException("Migration V" + migration.version + "__" + migration.description
+                        + " was modified after it had been applied (checksum " + migration.checksum
+                        + ", expected " + checksum + ")");
+            }
+        }
+        return upToDate;
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        logger.info("Applying migration V{}__{}", migration.version, migration.description);
+        long start = System.nanoTime();
+        // Скрипт выполняется целиком: драйвер сам разбивает его на операторы с учётом $$-строк
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(migration.sql);
+        }
+        int elapsedMs = (int) ((System.nanoTime() - start) / 1_000_000);
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO schema_version (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+            ps.setInt(1, migration.version);
+            ps.setString(2, migration.description);
+            ps.setLong(3, migration.checksum);
+            ps.setInt(4, elapsedMs);
+            ps.executeUpdate();
+        }
+    }
+
+    private int latestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version;
+    }
+
+    private static List<Migration> loadMigrations() {
+        List<Migration> result = new ArrayList<>();
+        int previous = 0;
+        for (String name : readLines(INDEX)) {
+            Matcher m = SCRIPT_NAME.matcher(name);
+            if (!m.matches()) {
+                throw new IllegalStateException("Invalid migration script name: " + name);
+            }
+            int version = Integer.parseInt(m.group(1));
+            if (version <= previous) {
+                throw new IllegalStateException("Migrations must be listed in ascending version order: " + name);
+            }
+            previous = version;
+            result.add(new Migration(version, m.group(2), String.join("\n", readLines(LOCATION + name))));
+        }
+        return result;
+    }
+
+    /**
+     * Строки ресурса без пустых и комментариев "#" (для индекса) либо все строки (для скриптов)
+     */
+    private static List<String> readLines(String resource) {
+        boolean index = resource.equals(INDEX);
+        List<String> lines = new ArrayList<>();
+        try (InputStream input = SchemaMigrator.class.getClassLoader().getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IllegalStateException("Migration resource not found: " + resource);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (index) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                }
+                lines.add(line);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read migration resource: " + resource, e);
+        }
+        return lines;
+    }
+
+    /**
+     * CRC32 текста скрипта. Строки читаются без разделителей, поэтому CRLF и LF дают одну сумму
+     */
+    private static long checksum(String sql) {
+        CRC32 crc = new CRC32();
+        crc.update(sql.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,99 @@
+package com.ratingsystem.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Исполнитель асинхронных методов сервисов (xxxAsync).
+ * По умолчанию - общий WorkScheduler (виртуальные потоки, параллелизм ограничен размером пула соединений),
+ * async.executor=fixed - отдельный пул из async.threads потоков.
+ * Пакетные утилиты могут подставить свой исполнитель через setExecutor
+ */
+public final class ServiceExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceExecutor.class);
+    private static Executor executor;
+    private static boolean ownExecutor;
+
+    private ServiceExecutor() {
+    }
+
+    /**
+     * Текущий исполнитель; создаётся по конфигурации при первом обращении
+     */
+    public static synchronized Executor getExecutor() {
+        if (executor == null) {
+            executor = createFromConfig();
+            ownExecutor = true;
+        }
+        return executor;
+    }
+
+    /**
+     * Заменить исполнитель. Закрывать переданный исполнитель - забота вызывающего
+     */
+    public static synchronized void setExecutor(Executor replacement) {
+        shutdown();
+        executor = replacement;
+        ownExecutor = false;
+    }
+
+    /**
+     * Выполнить работу на исполнителе сервисов. Исключение работы завершает future
+     * исключительно (CompletionException с исходной причиной), а не подменяется пустым результатом
+     */
+    public static <T> CompletableFuture<T> supply(Callable<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            getExecutor().execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(work.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Остановить собственный исполнитель при завершении приложения
+     */
+    public static synchronized void shutdown() {
+        if (ownExecutor && executor instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+        executor = null;
+        ownExecutor = false;
+    }
+
+    private static Executor createFromConfig() {
+        DatabaseManager db = DatabaseManager.getInstance();
+        String type = db.getConfigProperty("async.executor", "virtual");
+        if ("virtual".equalsIgnoreCase(type)) {
+            logger.info("Service async executor: shared work scheduler");
+            return WorkScheduler.getInstance();
+        }
+        int threads = Integer.parseInt(db.getConfigProperty("async.threads",
+                String.valueOf(Math.max(2, db.getPoolMaxSize()))));
+        AtomicInteger counter = new AtomicInteger();
+        logger.info("Service async executor: fixed pool of {} threads", threads);
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "service-async-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
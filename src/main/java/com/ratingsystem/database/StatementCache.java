@@ -0,0 +1,145 @@
+package com.ratingsystem.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU-кэш подготовленных операторов одного соединения, ключ - текст SQL.
+ * Соединение в каждый момент принадлежит одному потоку, поэтому кэш не синхронизирован
+ */
+public class StatementCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+
+    /**
+     * Счётчики попаданий/промахов, общие для всех соединений пула
+     */
+    public static class Stats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        public long getEvictions() {
+            return evictions.sum();
+        }
+
+        public double getHitRate() {
+            long h = getHits();
+            long total = h + getMisses();
+            return total == 0 ? 0.0 : (double) h / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, evictions=%d, hitRate=%.2f",
+                    getHits(), getMisses(), getEvictions(), getHitRate());
+        }
+    }
+
+    private final Connection connection;
+    private final int maxSize;
+    private final Stats stats;
+    private final Map<String, PreparedStatement> statements;
+    private final Set<PreparedStatement> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    StatementCache(Connection connection, int maxSize, Stats stats) {
+        this.connection = connection;
+        this.maxSize = maxSize;
+        this.stats = stats;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Получить подготовленный оператор для SQL. После использования его нужно вернуть через release
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        if (maxSize <= 0) {
+            return connection.prepareStatement(sql);
+        }
+        PreparedStatement cached = statements.get(sql);
+        if (cached != null && !inUse.contains(cached)) {
+            stats.hits.increment();
+            inUse.add(cached);
+            return cached;
+        }
+        stats.misses.increment();
+        PreparedStatement created = connection.prepareStatement(sql);
+        // Если тот же SQL уже выполняется (например, открыт поток), второй экземпляр не кэшируется
+        // и закрывается в release
+        if (cached == null) {
+            statements.put(sql, created);
+            inUse.add(created);
+            evictIfNeeded();
+        }
+        return created;
+    }
+
+    /**
+     * Вернуть оператор: закэшированный очищается и остаётся открытым, остальные закрываются
+     */
+    void release(PreparedStatement statement) {
+        try {
+            if (inUse.remove(statement)) {
+                statement.clearParameters();
+                statement.setFetchSize(0);
+            } else {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            logger.debug("Error releasing prepared statement", e);
+            statements.values().remove(statement);
+            closeQuietly(statement);
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, PreparedStatement>> it = statements.entrySet().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            PreparedStatement eldest = it.next().getValue();
+            if (inUse.contains(eldest)) {
+                continue;
+            }
+            it.remove();
+            closeQuietly(eldest);
+            stats.evictions.increment();
+        }
+    }
+
+    /**
+     * Закрыть все закэшированные операторы
+     */
+    void clear() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+        inUse.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.debug("Error closing prepared statement", e);
+        }
+    }
+}
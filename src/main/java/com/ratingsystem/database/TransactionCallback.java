@@ -0,0 +1,10 @@
+package com.ratingsystem.database;
+
+/**
+ * Работа, выполняемая в транзакции DatabaseManager.inTransaction.
+ * E - проверяемое исключение, которое может бросить тело (выводится компилятором из лямбды)
+ */
+@FunctionalInterface
+public interface TransactionCallback<T, E extends Exception> {
+    T doInTransaction(Tx tx) throws E;
+}
@@ -0,0 +1,65 @@
+package com.ratingsystem.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Транзакция, закреплённая за потоком на время DatabaseManager.inTransaction.
+ * Все запросы DatabaseManager (и сервисов) из этого потока идут через её соединение
+ */
+public class Tx {
+
+    private static final Logger logger = LoggerFactory.getLogger(Tx.class);
+
+    private final PooledConnection pooledConnection;
+    private final List<Runnable> completionCallbacks = new ArrayList<>();
+    private boolean rollbackOnly;
+
+    Tx(PooledConnection pooledConnection) {
+        this.pooledConnection = pooledConnection;
+    }
+
+    /**
+     * JDBC-соединение транзакции (для COPY и прочих операций драйвера). Не закрывать и не фиксировать вручную
+     */
+    public Connection getConnection() {
+        return pooledConnection.getConnection();
+    }
+
+    PooledConnection getPooledConnection() {
+        return pooledConnection;
+    }
+
+    /**
+     * Выполнить действие после завершения транзакции (фиксации или отката)
+     */
+    public void afterCompletion(Runnable callback) {
+        completionCallbacks.add(callback);
+    }
+
+    /**
+     * Пометить транзакцию на откат: внешний inTransaction не зафиксирует её
+     */
+    public void setRollbackOnly() {
+        rollbackOnly = true;
+    }
+
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    void runCompletionCallbacks() {
+        for (Runnable callback : completionCallbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                logger.error("Transaction completion callback failed", e);
+            }
+        }
+        completionCallbacks.clear();
+    }
+}
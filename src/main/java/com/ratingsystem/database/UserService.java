@@ -5,9 +5,10 @@ import com.ratingsystem.utils.PasswordUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Сервис для работы с пользователями
@@ -15,6 +16,14 @@ import java.util.List;
 public class UserService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
+    static final RowMapper<User> USER_MAPPER = rs -> new User(
+            rs.getInt("id"),
+            rs.getString("username"),
+            rs.getString("password_hash"),
+            User.UserRole.fromString(rs.getString("role"))
+    );
+
     private DatabaseManager db;
 
     public UserService() {
@@ -22,52 +31,117 @@ public class UserService {
     }
 
     /**
-     * Аутентифицировать пользователя
+     * Аутентифицировать пользователя (блокирует вызывающий поток, из UI использовать authenticateAsync).
+     * Пользователь читается в вызывающем потоке, ожидается только проверка пароля на пуле аутентификации,
+     * поэтому метод можно вызывать и из задачи WorkScheduler
      */
     public User authenticate(String username, String password) {
-        try {
-            ResultSet rs = db.executeQuery(
-                    "SELECT id, username, password_hash, role FROM users WHERE username = ?",
-                    username
-            );
+        long start = System.nanoTime();
+        AuthenticationGuard guard = AuthenticationGuard.getInstance();
+        long retryAfter = guard.getThrottle().getRetryAfterMillis(username, guard.getSource());
+        if (retryAfter > 0) {
+            logger.warn("Login attempt for {} throttled, retry after {} ms", username, retryAfter);
+            return null;
+        }
 
-            if (rs.next()) {
-                String storedHash = rs.getString("password_hash");
-                if (PasswordUtils.verifyPassword(password, storedHash)) {
-                    User user = new User(
-                            rs.getInt("id"),
-                            rs.getString("username"),
-                            storedHash,
-                            User.UserRole.fromString(rs.getString("role"))
-                    );
-                    logger.info("User authenticated: {}", username);
-                    return user;
-                }
-            }
+        try {
+            User user = getUserByUsernameOrThrow(username);
+            boolean valid = guard.verify(password, user != null ? user.getPasswordHash() : null).get();
+            User result = valid ? user : null;
+            completeLogin(guard, username, password, result, start);
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             logger.error("Error authenticating user", e);
         }
+        guard.getLatencyStats().record(System.nanoTime() - start);
         return null;
     }
 
+    /**
+     * Аутентифицировать пользователя в фоне. Результат - пользователь или null при неверных данных.
+     * Future завершается исключительно LoginThrottledException, если попытки с этого имени или терминала
+     * временно заблокированы, и RejectedExecutionException, если переполнена очередь проверки паролей
+     */
+    public CompletableFuture<User> authenticateAsync(String username, String password) {
+        long start = System.nanoTime();
+        AuthenticationGuard guard = AuthenticationGuard.getInstance();
+        LoginThrottle throttle = guard.getThrottle();
+        String source = guard.getSource();
+
+        long retryAfter = throttle.getRetryAfterMillis(username, source);
+        if (retryAfter > 0) {
+            logger.warn("Login attempt for {} throttled, retry after {} ms", username, retryAfter);
+            return CompletableFuture.failedFuture(new LoginThrottledException(username, retryAfter));
+        }
+
+        return ServiceExecutor.supply(() -> getUserByUsernameOrThrow(username))
+                .thenCompose(user -> guard.verify(password, user != null ? user.getPasswordHash() : null)
+                        .thenApply(valid -> valid ? user : null))
+                .whenComplete((user, error) -> {
+                    if (error != null) {
+                        guard.getLatencyStats().record(System.nanoTime() - start);
+                    } else {
+                        completeLogin(guard, username, password, user, start);
+                    }
+                });
+    }
+
+    /**
+     * Учесть результат проверки: время входа, счётчики ограничения попыток и перехеширование
+     */
+    private void completeLogin(AuthenticationGuard guard, String username, String password, User user, long start) {
+        guard.getLatencyStats().record(System.nanoTime() - start);
+        if (user != null) {
+            guard.getThrottle().recordSuccess(username);
+            logger.info("User authenticated: {}", username);
+            if (PasswordUtils.needsRehash(user.getPasswordHash())) {
+                rehashInBackground(user, password, guard);
+            }
+        } else {
+            guard.getThrottle().recordFailure(username, guard.getSource());
+            logger.info("Failed login attempt for {}", username);
+        }
+    }
+
+    /**
+     * Перехешировать пароль по текущей политике уже после ответа на вход, чтобы не удлинять его.
+     * UPDATE сравнивает старый хеш: пароль, сменённый за это время, не перезаписывается.
+     * При неудаче (например, очередь проверки занята) пароль перехешируется при следующем входе
+     */
+    private void rehashInBackground(User user, String password, AuthenticationGuard guard) {
+        guard.hash(password)
+                .thenCompose(newHash -> ServiceExecutor.supply(() -> db.executeUpdate(
+                        "UPDATE users SET password_hash = ? WHERE id = ? AND password_hash = ?",
+                        newHash, user.getId(), user.getPasswordHash())))
+                .whenComplete((updated, error) -> {
+                    if (error != null) {
+                        logger.warn("Failed to rehash password of {}", user.getUsername(), error);
+                    } else if (updated > 0) {
+                        logger.info("Password hash of {} upgraded to cost {}", user.getUsername(), PasswordUtils.getCost());
+                    }
+                });
+    }
+
+    private User getUserByUsernameOrThrow(String username) throws SQLException {
+        return db.queryForObject(
+                "SELECT id, username, password_hash, role FROM users WHERE username = ?",
+                USER_MAPPER,
+                username
+        );
+    }
+
     /**
      * Получить пользователя по имени
      */
     public User getUserByUsername(String username) {
         try {
-            ResultSet rs = db.executeQuery(
+            return db.queryForObject(
                     "SELECT id, username, password_hash, role FROM users WHERE username = ?",
+                    USER_MAPPER,
                     username
             );
-
-            if (rs.next()) {
-                return new User(
-                        rs.getInt("id"),
-                        rs.getString("username"),
-                        rs.getString("password_hash"),
-                        User.UserRole.fromString(rs.getString("role"))
-                );
-            }
         } catch (Exception e) {
             logger.error("Error getting user by username", e);
         }
@@ -93,8 +167,7 @@ public class UserService {
      */
     public boolean userExists(String username) {
         try {
-            ResultSet rs = db.executeQuery("SELECT id FROM users WHERE username = ?", username);
-            return rs.next();
+            return db.queryForObject("SELECT id FROM users WHERE username = ?", rs -> rs.getInt("id"), username) != null;
         } catch (Exception e) {
             logger.error("Error checking user existence", e);
             return false;
@@ -105,24 +178,61 @@ public class UserService {
      * Получить всех пользователей
      */
     public List<User> getAllUsers() {
-        List<User> users = new ArrayList<>();
         try {
-            ResultSet rs = db.executeQuery(
-                    "SELECT id, username, password_hash, role FROM users ORDER BY username"
-            );
-            while (rs.next()) {
-                User user = new User(
-                        rs.getInt("id"),
-                        rs.getString("username"),
-                        rs.getString("password_hash"),
-                        User.UserRole.fromString(rs.getString("role"))
-                );
-                users.add(user);
-            }
+            return loadAllUsers();
         } catch (Exception e) {
             logger.error("Error getting all users", e);
         }
-        return users;
+        return new ArrayList<>();
+    }
+
+    /**
+     * Асинхронно получить всех пользователей. Ошибка БД завершает future исключительно
+     */
+    public CompletableFuture<List<User>> getAllUsersAsync() {
+        return ServiceExecutor.supply(this::loadAllUsers);
+    }
+
+    private List<User> loadAllUsers() throws SQLException {
+        return db.query(
+                "SELECT id, username, password_hash, role FROM users ORDER BY username",
+                USER_MAPPER
+        );
+    }
+
+    /**
+     * Страница пользователей, упорядоченных по имени: не больше limit строк после afterUsername
+     * (null - первая страница)
+     */
+    public List<User> getUsersPage(String afterUsername, int limit) {
+        try {
+            return loadUsersPage(afterUsername, limit);
+        } catch (Exception e) {
+            logger.error("Error getting users page after: {}", afterUsername, e);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Асинхронно получить страницу пользователей
+     */
+    public CompletableFuture<List<User>> getUsersPageAsync(String afterUsername, int limit) {
+        return ServiceExecutor.supply(() -> loadUsersPage(afterUsername, limit));
+    }
+
+    private List<User> loadUsersPage(String afterUsername, int limit) throws SQLException {
+        if (afterUsername == null) {
+            return db.query(
+                    "SELECT id, username, password_hash, role FROM users ORDER BY username LIMIT ?",
+                    USER_MAPPER,
+                    limit
+            );
+        }
+        return db.query(
+                "SELECT id, username, password_hash, role FROM users WHERE username > ? ORDER BY username LIMIT ?",
+                USER_MAPPER,
+                afterUsername, limit
+        );
     }
 
     /**
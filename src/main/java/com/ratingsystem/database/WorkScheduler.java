@@ -0,0 +1,91 @@
+package com.ratingsystem.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Общий исполнитель блокирующей работы (JDBC, PDF): каждая задача получает свой виртуальный поток,
+ * а одновременно выполняются не больше work.max-concurrency задач (по умолчанию - размер пула соединений).
+ * Остальные ждут разрешения семафора, почти ничего не стоя, поэтому тысячи логических задач
+ * не превращаются в тысячи ожиданий соединения с таймаутом в ConnectionPool.
+ * Задача не должна синхронно ждать другую задачу планировщика: при занятых разрешениях это взаимная блокировка.
+ * Singleton паттерн
+ */
+public final class WorkScheduler implements Executor {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkScheduler.class);
+    private static WorkScheduler instance;
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    private WorkScheduler(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("work-", 1).factory());
+    }
+
+    /**
+     * Получить единственный экземпляр. Вызывать после DatabaseManager.initialize, чтобы знать размер пула
+     */
+    public static synchronized WorkScheduler getInstance() {
+        if (instance == null) {
+            DatabaseManager db = DatabaseManager.getInstance();
+            int poolSize = Math.max(1, db.getPoolMaxSize());
+            int maxConcurrency = Integer.parseInt(db.getConfigProperty("work.max-concurrency", String.valueOf(poolSize)));
+            instance = new WorkScheduler(Math.max(1, maxConcurrency));
+            logger.info("Work scheduler started (virtual threads, max concurrency {})", maxConcurrency);
+        }
+        return instance;
+    }
+
+    /**
+     * Выполнить задачу на виртуальном потоке, как только освободится разрешение.
+     * Разрешение ждётся без реакции на прерывание: отменённые FutureTask/Task при запуске сразу выходят
+     */
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    /**
+     * Сколько задач выполняется прямо сейчас
+     */
+    public int getRunningCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * Сколько задач ждут разрешения (оценка)
+     */
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Прервать выполняющиеся задачи и не принимать новые (при завершении приложения)
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.executor.shutdownNow();
+            instance = null;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.ratingsystem.models;
+
+/**
+ * Строка отчёта: группа -> дисциплина -> рейтинг.
+ * Дисциплина и рейтинг равны null, если у группы нет дисциплин или у дисциплины нет рейтингов
+ */
+public class ReportRow {
+
+    private final Group group;
+    private final Discipline discipline;
+    private final Rating rating;
+
+    public ReportRow(Group group, Discipline discipline, Rating rating) {
+        this.group = group;
+        this.discipline = discipline;
+        this.rating = rating;
+    }
+
+    public Group getGroup() {
+        return group;
+    }
+
+    public Discipline getDiscipline() {
+        return discipline;
+    }
+
+    public Rating getRating() {
+        return rating;
+    }
+}
@@ -0,0 +1,135 @@
+package com.ratingsystem.ui;
+
+import com.ratingsystem.database.WorkScheduler;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Выполнение работы с БД и PDF вне JavaFX Application Thread.
+ * Задачи выполняются на общем WorkScheduler (виртуальные потоки, параллелизм не больше пула соединений),
+ * результат и ошибки доставляются обратно в FX-поток через обработчики javafx.concurrent.Task
+ * Singleton паттерн
+ */
+public class BackgroundTaskRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackgroundTaskRunner.class);
+    private static BackgroundTaskRunner instance;
+
+    private final WorkScheduler scheduler;
+    private final ObservableList<Task<?>> activeTasks = FXCollections.observableArrayList();
+
+    private BackgroundTaskRunner(WorkScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Получить единственный экземпляр
+     */
+    public static synchronized BackgroundTaskRunner getInstance() {
+        if (instance == null) {
+            instance = new BackgroundTaskRunner(WorkScheduler.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Выполнить работу в фоне. onSuccess и onFailure вызываются в FX-потоке
+     */
+    public <T> Task<T> run(String message, Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        Task<T> task = new Task<T>() {
+            @Override
+            protected T call() throws Exception {
+                updateMessage(message);
+                return work.call();
+            }
+        };
+        return run(task, onSuccess, onFailure);
+    }
+
+    /**
+     * Выполнить готовую задачу (например, с собственным updateProgress) в фоне
+     */
+    public <T> Task<T> run(Task<T> task, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        task.setOnSucceeded(event -> {
+            activeTasks.remove(task);
+            if (onSuccess != null) {
+                onSuccess.accept(task.getValue());
+            }
+        });
+        task.setOnFailed(event -> {
+            activeTasks.remove(task);
+            Throwable error = task.getException();
+            logger.error("Background task failed: {}", task.getMessage(), error);
+            if (onFailure != null) {
+                onFailure.accept(error);
+            }
+        });
+        task.setOnCancelled(event -> {
+            activeTasks.remove(task);
+            logger.info("Background task cancelled: {}", task.getMessage());
+        });
+
+        addActive(task);
+        try {
+            scheduler.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Планировщик уже остановлен - приложение завершается
+            activeTasks.remove(task);
+            logger.warn("Work scheduler is shut down, task rejected");
+            if (onFailure != null) {
+                onFailure.accept(new IllegalStateException("Приложение завершает работу", e));
+            }
+        }
+        return task;
+    }
+
+    private void addActive(Task<?> task) {
+        if (Platform.isFxApplicationThread()) {
+            activeTasks.add(task);
+        } else {
+            Platform.runLater(() -> {
+                if (task.getState() != Worker.State.SUCCEEDED
+                        && task.getState() != Worker.State.FAILED
+                        && task.getState() != Worker.State.CANCELLED) {
+                    activeTasks.add(task);
+                }
+            });
+        }
+    }
+
+    /**
+     * Выполняющиеся и ожидающие задачи (изменяется только в FX-потоке)
+     */
+    public ObservableList<Task<?>> getActiveTasks() {
+        return activeTasks;
+    }
+
+    /**
+     * Отменить все выполняющиеся и ожидающие задачи
+     */
+    public void cancelAll() {
+        for (Task<?> task : new ArrayList<>(activeTasks)) {
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * Отменить незавершённые задачи при завершении приложения
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.cancelAll();
+            instance = null;
+        }
+    }
+}
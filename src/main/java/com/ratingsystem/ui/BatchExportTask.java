@@ -0,0 +1,352 @@
+package com.ratingsystem.ui;
+
+import com.ratingsystem.database.ReportService;
+import com.ratingsystem.models.Group;
+import com.ratingsystem.models.Rating;
+import com.ratingsystem.models.ReportRow;
+import com.ratingsystem.utils.PDFExporter;
+import javafx.concurrent.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Пакетный экспорт PDF по нескольким группам: для каждой группы сводка и отчёт по каждой дисциплине.
+ * Данные группы читаются одним потоковым запросом ReportService в потоке самой задачи - он уже занимает
+ * разрешение WorkScheduler, поэтому чтение не обходит ограничение по пулу соединений. Документы формируются
+ * параллельно (один документ на рабочий поток, по умолчанию по числу ядер) и пишутся в папку или один ZIP-архив.
+ * В памяти одновременно не больше threads групп: следующая читается, когда освобождается место.
+ * Отмена задачи останавливает рабочие потоки, недописанный архив удаляется
+ */
+public class BatchExportTask extends Task<BatchExportTask.Result> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchExportTask.class);
+    private static final String SUMMARY_NAME = "summary";
+
+    /**
+     * Итог экспорта
+     */
+    public static class Result {
+        private final int documents;
+        private final long bytes;
+        private final long elapsedMillis;
+
+        Result(int documents, long bytes, long elapsedMillis) {
+            this.documents = documents;
+            this.bytes = bytes;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getDocuments() {
+            return documents;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * Пропускная способность, документов в секунду
+         */
+        public double getDocumentsPerSecond() {
+            return elapsedMillis > 0 ? documents * 1000.0 / elapsedMillis : documents;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d documents, %.1f MB in %.1f s (%.1f documents/sec)",
+                    documents, bytes / 1_000_000.0, elapsedMillis / 1000.0, getDocumentsPerSecond());
+        }
+    }
+
+    /**
+     * Куда пишутся готовые документы. write вызывается из нескольких потоков
+     */
+    private interface DocumentSink extends Closeable {
+        void write(String name, byte[] pdf) throws IOException;
+    }
+
+    private final List<Group> groups;
+    private final File target;
+    private final boolean zip;
+    private final int threads;
+    private final ReportService reportService = new ReportService();
+
+    private final AtomicInteger done = new AtomicInteger();
+    private final AtomicInteger expected = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+
+    private BatchExportTask(List<Group> groups, File target, boolean zip, int threads) {
+        this.groups = List.copyOf(groups);
+        this.target = target;
+        this.zip = zip;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Экспорт в папку: по подпапке на группу
+     */
+    public static BatchExportTask toDirectory(List<Group> groups, File directory, int threads) {
+        return new BatchExportTask(groups, directory, false, threads);
+    }
+
+    /**
+     * Экспорт в один ZIP-архив
+     */
+    public static BatchExportTask toZip(List<Group> groups, File zipFile, int threads) {
+        return new BatchExportTask(groups, zipFile, true, threads);
+    }
+
+    @Override
+    protected Result call() throws Exception {
+        long start = System.nanoTime();
+        // Оценка по счётчику дисциплин, уточняется после чтения каждой группы
+        for (Group group : groups) {
+            expected.addAndGet(1 + group.getDisciplineCount());
+        }
+        updateMessage("Пакетный экспорт: " + groups.size() + " групп");
+        updateProgress(0, expected.get());
+
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "batch-export-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Map<String, Integer> groupIds = new LinkedHashMap<>();
+        for (Group group : groups) {
+            groupIds.put(group.getGroupCode(), group.getId());
+        }
+        Map<String, String> folders = fileNames(groupIds, null);
+
+        Semaphore inFlight = new Semaphore(threads);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        DocumentSink sink = zip ? new ZipSink(target) : new DirectorySink(target.toPath());
+        boolean completed = false;
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(groups.size());
+            for (Group group : groups) {
+                inFlight.acquire();
+                if (failure.get() != null) {
+                    break;
+                }
+                GroupData data = readGroup(group);
+                futures.add(renderGroup(data, folders.get(group.getGroupCode()) + "/", sink, pool)
+                        .whenComplete((ignored, error) -> {
+                            if (error != null) {
+                                failure.compareAndSet(null, error);
+                            }
+                            inFlight.release();
+                        }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+            completed = true;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } finally {
+            pool.shutdownNow();
+            sink.close();
+            if (!completed && zip && !target.delete()) {
+                logger.warn("Could not delete incomplete archive: {}", target);
+            }
+        }
+
+        Result result = new Result(done.get(), bytes.get(), (System.nanoTime() - start) / 1_000_000);
+        logger.info("Batch export to {} finished: {}", target, result);
+        return result;
+    }
+
+    /**
+     * Данные одной группы: рейтинги по дисциплинам в порядке кода дисциплины
+     */
+    private static class GroupData {
+        final Group group;
+        final Map<String, List<Rating>> ratings = new LinkedHashMap<>();
+        final Map<String, Integer> disciplineIds = new LinkedHashMap<>();
+
+        GroupData(Group group) {
+            this.group = group;
+        }
+    }
+
+    private GroupData readGroup(Group group) {
+        checkCancelled();
+        GroupData data = new GroupData(group);
+        try (Stream<ReportRow> rows = reportService.streamGroupReport(group.getId())) {
+            rows.forEach(row -> {
+                if (row.getDiscipline() == null) {
+                    return;
+                }
+                String code = row.getDiscipline().getDisciplineCode();
+                data.disciplineIds.putIfAbsent(code, row.getDiscipline().getId());
+                List<Rating> list = data.ratings.computeIfAbsent(code, c -> new ArrayList<>());
+                if (row.getRating() != null) {
+                    list.add(row.getRating());
+                }
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException("Ошибка чтения группы " + group.getGroupCode(), e);
+        }
+        expected.addAndGet(data.ratings.size() - group.getDisciplineCount());
+        return data;
+    }
+
+    /**
+     * Каждый документ группы - отдельная задача пула
+     */
+    private CompletableFuture<Void> renderGroup(GroupData data, String folder, DocumentSink sink, ExecutorService pool) {
+        Map<String, String> files = fileNames(data.disciplineIds, SUMMARY_NAME);
+        List<CompletableFuture<Void>> documents = new ArrayList<>(data.ratings.size() + 1);
+
+        documents.add(CompletableFuture.runAsync(() -> render(sink, folder + SUMMARY_NAME + ".pdf", out -> {
+            Map<String, Double> summary = new LinkedHashMap<>();
+            data.ratings.forEach((code, list) -> summary.put(code,
+                    list.stream().mapToDouble(Rating::getRating).average().orElse(0)));
+            PDFExporter.exportSummaryToPDF(out, data.group.getGroupCode(), summary);
+        }), pool));
+
+        data.ratings.forEach((code, list) -> documents.add(CompletableFuture.runAsync(
+                () -> render(sink, folder + files.get(code) + ".pdf", out -> {
+                    List<String[]> students = new ArrayList<>(list.size());
+                    for (Rating r : list) {
+                        // № студента и точный рейтинг уходят во встроенные данные для импорта
+                        students.add(new String[]{r.getStudentName(), String.format("%.2f", r.getRating()),
+                                String.valueOf(r.getStudentNumber()), String.valueOf(r.getRating())});
+                    }
+                    PDFExporter.exportDisciplineRatingsToPDF(out, data.group.getGroupCode(), code, students);
+                }), pool)));
+
+        return CompletableFuture.allOf(documents.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private interface Renderer {
+        void render(ByteArrayOutputStream out) throws Exception;
+    }
+
+    private void render(DocumentSink sink, String name, Renderer renderer) {
+        checkCancelled();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+            renderer.render(out);
+            sink.write(name, out.toByteArray());
+            bytes.addAndGet(out.size());
+        } catch (Exception e) {
+            throw new IllegalStateException("Ошибка экспорта " + name, e);
+        }
+        int completed = done.incrementAndGet();
+        updateProgress(completed, Math.max(completed, expected.get()));
+        updateMessage("Пакетный экспорт: " + completed + " из " + expected.get() + " документов");
+    }
+
+    private void checkCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * Код группы или дисциплины как безопасное имя файла. Имя из одних точек ("." и "..") заменяется:
+     * иначе оно стало бы ссылкой на текущую или родительскую папку
+     */
+    private static String fileName(String code) {
+        String name = code.replaceAll("[^\\p{L}\\p{N}._-]", "_");
+        return name.isEmpty() || name.matches("\\.+") ? "_" : name;
+    }
+
+    /**
+     * Имена файлов для кодов (код -> id). Если после замены символов имена совпадают без учёта регистра
+     * ("А/Б" и "А_Б") или с зарезервированным, к каждому из совпавших добавляется " (id)" - такой суффикс
+     * fileName получить не может, поэтому имена уникальны и в папке, и в архиве
+     */
+    private static Map<String, String> fileNames(Map<String, Integer> ids, String reserved) {
+        Map<String, Integer> usage = new HashMap<>();
+        if (reserved != null) {
+            usage.put(reserved.toLowerCase(Locale.ROOT), 1);
+        }
+        for (String code : ids.keySet()) {
+            usage.merge(fileName(code).toLowerCase(Locale.ROOT), 1, Integer::sum);
+        }
+        Map<String, String> names = new HashMap<>();
+        ids.forEach((code, id) -> {
+            String name = fileName(code);
+            names.put(code, usage.get(name.toLowerCase(Locale.ROOT)) > 1 ? name + " (" + id + ")" : name);
+        });
+        return names;
+    }
+
+    private static class DirectorySink implements DocumentSink {
+        private final Path directory;
+
+        DirectorySink(Path directory) {
+            this.directory = directory.toAbsolutePath().normalize();
+        }
+
+        @Override
+        public void write(String name, byte[] pdf) throws IOException {
+            Path file = directory.resolve(name).normalize();
+            if (!file.startsWith(directory)) {
+                throw new IOException("Имя файла выходит за пределы папки экспорта: " + name);
+            }
+            Files.createDirectories(file.getParent());
+            Files.write(file, pdf);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * ZipOutputStream не потокобезопасен: документы формируются параллельно в памяти,
+     * а в архив записываются по одному
+     */
+    private static class ZipSink implements DocumentSink {
+        private final ZipOutputStream zip;
+
+        ZipSink(File file) throws IOException {
+            this.zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        }
+
+        @Override
+        public synchronized void write(String name, byte[] pdf) throws IOException {
+            zip.putNextEntry(new ZipEntry(name));
+            zip.write(pdf);
+            zip.closeEntry();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            zip.close();
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.ratingsystem.ui;
 
 import com.ratingsystem.database.DatabaseManager;
+import com.ratingsystem.database.LoginThrottledException;
 import com.ratingsystem.database.UserService;
 import com.ratingsystem.models.User;
 import com.ratingsystem.utils.PasswordUtils;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -14,6 +16,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.ResultSet;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Контроллер окна входа в систему
@@ -55,17 +59,34 @@ public class LoginController {
             return;
         }
 
-        try {
-            currentUser = userService.authenticate(username, password);
-
-            if (currentUser != null) {
+        // Проверка BCrypt занимает сотни миллисекунд - выполняется в фоне, окно остаётся отзывчивым
+        loginButton.setDisable(true);
+        errorLabel.setText("Проверка...");
+        userService.authenticateAsync(username, password).whenComplete((user, error) -> Platform.runLater(() -> {
+            loginButton.setDisable(false);
+            if (error != null) {
+                showLoginError(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                return;
+            }
+            if (user != null) {
+                currentUser = user;
+                errorLabel.setText("");
                 logger.info("User logged in: {} with role {}", username, currentUser.getRole());
                 openMainWindow();
             } else {
                 errorLabel.setText("Неверное имя пользователя или пароль");
             }
-        } catch (Exception e) {
-            logger.error("Login error", e);
+        }));
+    }
+
+    private void showLoginError(Throwable error) {
+        if (error instanceof LoginThrottledException throttled) {
+            long seconds = Math.max(1, (throttled.getRetryAfterMillis() + 999) / 1000);
+            errorLabel.setText("Слишком много неудачных попыток. Повторите через " + seconds + " с");
+        } else if (error instanceof RejectedExecutionException) {
+            errorLabel.setText("Сервер перегружен, повторите попытку");
+        } else {
+            logger.error("Login error", error);
             errorLabel.setText("Ошибка при входе в систему");
         }
     }
@@ -1,18 +1,30 @@
 package com.ratingsystem.ui;
 
+import com.ratingsystem.database.ChangeEvent;
+import com.ratingsystem.database.DataChangeListener;
 import com.ratingsystem.database.DatabaseManager;
 import com.ratingsystem.database.GroupService;
+import com.ratingsystem.database.ImportService;
 import com.ratingsystem.database.DisciplineService;
 import com.ratingsystem.database.RatingService;
+import com.ratingsystem.database.ReportService;
 import com.ratingsystem.models.Discipline;
 import com.ratingsystem.models.Group;
 import com.ratingsystem.models.Rating;
+import com.ratingsystem.models.ReportRow;
 import com.ratingsystem.models.User;
+import com.ratingsystem.utils.CSVExporter;
 import com.ratingsystem.utils.PDFExporter;
 import com.ratingsystem.utils.PDFImporter;
+import com.ratingsystem.utils.RatingsFormat;
+import com.ratingsystem.utils.RatingsImporter;
 import com.ratingsystem.utils.ValidationUtils;
+import com.ratingsystem.utils.XLSXExporter;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -20,7 +32,9 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import org.slf4j.Logger;
@@ -28,9 +42,12 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.sql.ResultSet;
 import java.util.*;
 import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
 
 /**
  * Главный контроллер приложения
@@ -126,13 +143,55 @@ public class MainController {
     @FXML
     private Button deleteRatingBtn;
 
+    @FXML
+    private HBox statusBar;
+
+    @FXML
+    private ProgressBar taskProgressBar;
+
+    @FXML
+    private Label taskStatusLabel;
+
     private User currentUser;
     private ObservableList<Group> groupsList = FXCollections.observableArrayList();
     private DatabaseManager db;
     private com.ratingsystem.database.GroupService groupService;
     private com.ratingsystem.database.DisciplineService disciplineService;
     private com.ratingsystem.database.RatingService ratingService;
+    private ReportService reportService;
+    private ImportService importService;
     private com.ratingsystem.database.UserService userService;
+    private BackgroundTaskRunner tasks;
+    private PagedTableLoader<Rating, Integer> ratingsPager;
+    private PagedTableLoader<User, String> usersPager;
+    private int batchExportThreads;
+
+    /**
+     * Сколько изменённых строк одного списка обновлять точечно; при большем числе список перечитывается целиком
+     */
+    private static final int ROW_REFRESH_LIMIT = 20;
+
+    /**
+     * События от других клиентов, ещё не применённые к спискам. Заполняется потоком слушателя,
+     * забирается потоком FX; защищено блокировкой на самой карте
+     */
+    private final Map<ChangeEvent.Entity, Map<Integer, ChangeEvent>> pendingChanges = new EnumMap<>(ChangeEvent.Entity.class);
+    private boolean changeFlushScheduled;
+
+    private final DataChangeListener changeListener = new DataChangeListener() {
+        @Override
+        public void onChange(ChangeEvent event) {
+            // Свои изменения контроллер уже отобразил после выполнения операции
+            if (!event.isLocal()) {
+                queueRemoteChange(event);
+            }
+        }
+
+        @Override
+        public void onResync() {
+            Platform.runLater(() -> reloadAfterResync());
+        }
+    };
 
     @FXML
     private void initialize() {
@@ -142,7 +201,11 @@ public class MainController {
             groupService = new GroupService();
             disciplineService = new DisciplineService();
             ratingService = new RatingService();
+            reportService = new ReportService();
+            importService = new ImportService();
             userService = new com.ratingsystem.database.UserService();
+            tasks = BackgroundTaskRunner.getInstance();
+            setupStatusBar();
             
             logger.info("Setting up table columns");
             setupTableColumns();
@@ -152,6 +215,14 @@ public class MainController {
 
             logger.info("Setting up users table columns");
             setupUsersTableColumns();
+
+            int pageSize = Integer.parseInt(db.getConfigProperty("ui.page-size", "200"));
+            ratingsPager = new PagedTableLoader<>(ratingsTable, "Загрузка рейтингов", pageSize,
+                    Rating::getStudentNumber, e -> showError("Ошибка загрузки рейтингов"));
+            usersPager = new PagedTableLoader<>(usersTable, "Загрузка пользователей", pageSize,
+                    User::getUsername, null);
+            batchExportThreads = Integer.parseInt(db.getConfigProperty("export.batch.threads",
+                    String.valueOf(Runtime.getRuntime().availableProcessors())));
             
             logger.info("Setting up disciplines tab");
             setupDisciplinesTab();
@@ -161,6 +232,8 @@ public class MainController {
 
             logger.info("Loading users");
             loadUsers();
+
+            db.addChangeListener(changeListener);
             
             logger.info("MainController initialized successfully");
         } catch (Exception e) {
@@ -169,6 +242,170 @@ public class MainController {
         }
     }
 
+    /**
+     * Строка состояния показывает последнюю фоновую операцию и позволяет отменить её
+     */
+    private void setupStatusBar() {
+        tasks.getActiveTasks().addListener((ListChangeListener<Task<?>>) change -> {
+            ObservableList<Task<?>> active = tasks.getActiveTasks();
+            boolean busy = !active.isEmpty();
+            statusBar.setVisible(busy);
+            statusBar.setManaged(busy);
+            taskProgressBar.progressProperty().unbind();
+            taskStatusLabel.textProperty().unbind();
+            if (busy) {
+                Task<?> current = active.get(active.size() - 1);
+                taskProgressBar.progressProperty().bind(current.progressProperty());
+                taskStatusLabel.textProperty().bind(current.messageProperty());
+            }
+        });
+    }
+
+    @FXML
+    private void handleCancelTasks() {
+        tasks.cancelAll();
+    }
+
+    /**
+     * Сообщение об ошибке фоновой операции
+     */
+    private static String errorMessage(Throwable e) {
+        String msg = e.getMessage();
+        return (msg == null || msg.isEmpty()) ? e.toString() : msg;
+    }
+
+    /**
+     * Изменение от другого клиента (вызывается в потоке слушателя). События копятся и схлопываются
+     * по id ещё до потока FX, а применяются одной пачкой: на любую серию уведомлений в очереди FX
+     * стоит не больше одной задачи
+     */
+    private void queueRemoteChange(ChangeEvent event) {
+        synchronized (pendingChanges) {
+            // Массовые изменения рейтингов приходят с id 0 - различаются по дисциплине
+            int key = event.isBulk() ? -event.getParentId() : event.getId();
+            pendingChanges.computeIfAbsent(event.getEntity(), entity -> new LinkedHashMap<>())
+                    .put(key, event);
+            if (changeFlushScheduled) {
+                return;
+            }
+            changeFlushScheduled = true;
+        }
+        Platform.runLater(this::flushRemoteChanges);
+    }
+
+    private void flushRemoteChanges() {
+        Map<ChangeEvent.Entity, Map<Integer, ChangeEvent>> pending;
+        synchronized (pendingChanges) {
+            pending = new EnumMap<>(pendingChanges);
+            pendingChanges.clear();
+            changeFlushScheduled = false;
+        }
+
+        List<ChangeEvent> groupChanges = takePendingChanges(pending, ChangeEvent.Entity.GROUP, null);
+        applyRemoteChanges(groupChanges, groupsList, Group::getId, groupService::getGroupById,
+                Comparator.comparing(Group::getGroupCode), () -> true, this::loadGroups);
+
+        Group selectedGroup = groupListView.getSelectionModel().getSelectedItem();
+        List<ChangeEvent> disciplineChanges = takePendingChanges(pending, ChangeEvent.Entity.DISCIPLINE,
+                selectedGroup != null ? selectedGroup.getId() : null);
+        if (selectedGroup != null) {
+            applyRemoteChanges(disciplineChanges, disciplineListView.getItems(), Discipline::getId,
+                    disciplineService::getDisciplineById, Comparator.comparing(Discipline::getDisciplineCode),
+                    () -> true, () -> loadDisciplinesForGroup(selectedGroup.getId()));
+        }
+
+        Discipline selectedDiscipline = disciplineListView.getSelectionModel().getSelectedItem();
+        List<ChangeEvent> ratingChanges = takePendingChanges(pending, ChangeEvent.Entity.RATING,
+                selectedDiscipline != null ? selectedDiscipline.getId() : null);
+        if (selectedDiscipline != null) {
+            applyRemoteChanges(ratingChanges, ratingsPager.getItems(), Rating::getId,
+                    ratingService::getRatingById, Comparator.comparingInt(Rating::getStudentNumber),
+                    ratingsPager::isComplete, () -> loadRatingsForDiscipline(selectedDiscipline.getId()));
+        }
+    }
+
+    /**
+     * События сущности из забранной пачки; если задан parentId - только относящиеся к открытому родителю
+     */
+    private static List<ChangeEvent> takePendingChanges(Map<ChangeEvent.Entity, Map<Integer, ChangeEvent>> changes,
+                                                        ChangeEvent.Entity entity, Integer parentId) {
+        Map<Integer, ChangeEvent> pending = changes.get(entity);
+        List<ChangeEvent> result = new ArrayList<>();
+        if (pending != null) {
+            for (ChangeEvent event : pending.values()) {
+                if (parentId == null || event.getParentId() == parentId) {
+                    result.add(event);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Перечитать в фоне только изменённые строки и заменить/вставить/удалить их в списке.
+     * loadedAll - загружен ли список целиком (для постраничных таблиц - все ли страницы)
+     */
+    private <T> void applyRemoteChanges(List<ChangeEvent> events, ObservableList<T> items, ToIntFunction<T> idOf,
+                                        IntFunction<T> loader, Comparator<T> order, BooleanSupplier loadedAll,
+                                        Runnable reloadAll) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (events.size() > ROW_REFRESH_LIMIT || events.stream().anyMatch(ChangeEvent::isBulk)) {
+            reloadAll.run();
+            return;
+        }
+        tasks.run("Обновление изменённых записей",
+                () -> {
+                    Map<Integer, T> fresh = new LinkedHashMap<>();
+                    for (ChangeEvent event : events) {
+                        boolean deleted = event.getOperation() == ChangeEvent.Operation.DELETE;
+                        fresh.put(event.getId(), deleted ? null : loader.apply(event.getId()));
+                    }
+                    return fresh;
+                },
+                fresh -> fresh.forEach((id, row) -> replaceRow(items, idOf, id, row, order, loadedAll.getAsBoolean())),
+                null);
+    }
+
+    private static <T> void replaceRow(ObservableList<T> items, ToIntFunction<T> idOf, int id, T row,
+                                       Comparator<T> order, boolean loadedAll) {
+        for (int i = 0; i < items.size(); i++) {
+            if (idOf.applyAsInt(items.get(i)) == id) {
+                if (row == null) {
+                    items.remove(i);
+                } else {
+                    items.set(i, row);
+                }
+                return;
+            }
+        }
+        if (row != null) {
+            int pos = 0;
+            while (pos < items.size() && order.compare(items.get(pos), row) < 0) {
+                pos++;
+            }
+            // За концом частично загруженного списка строка придёт со следующей страницей
+            if (pos < items.size() || loadedAll) {
+                items.add(pos, row);
+            }
+        }
+    }
+
+    /**
+     * Уведомления могли потеряться - перечитать открытые списки
+     */
+    private void reloadAfterResync() {
+        synchronized (pendingChanges) {
+            pendingChanges.clear();
+        }
+        loadGroups();
+        Group selectedGroup = groupListView.getSelectionModel().getSelectedItem();
+        if (selectedGroup != null) {
+            loadDisciplinesForGroup(selectedGroup.getId());
+        }
+    }
+
     /**
      * Настроить вкладку Дисциплины
      */
@@ -246,29 +483,20 @@ public class MainController {
                 new javafx.beans.property.SimpleIntegerProperty(param.getValue().getDisciplineCount()).asObject());
 
         groupsTable.setItems(groupsList);
+        // Несколько групп выбираются для пакетного экспорта
+        groupsTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
     }
 
     /**
      * Загрузить все группы из БД
      */
     private void loadGroups() {
-        try {
-            groupsList.clear();
-            ResultSet rs = db.executeQuery("SELECT id, group_code, student_count, discipline_count FROM groups");
-            while (rs.next()) {
-                Group group = new Group(
-                        rs.getInt("id"),
-                        rs.getString("group_code"),
-                        rs.getInt("student_count"),
-                        rs.getInt("discipline_count")
-                );
-                groupsList.add(group);
-            }
-            logger.info("Loaded {} groups from database", groupsList.size());
-        } catch (Exception e) {
-            logger.error("Error loading groups", e);
-            showError("Ошибка загрузки групп");
-        }
+        tasks.run("Загрузка групп", groupService::getAllGroups,
+                groups -> {
+                    groupsList.setAll(groups);
+                    logger.info("Loaded {} groups from database", groupsList.size());
+                },
+                e -> showError("Ошибка загрузки групп"));
     }
 
     /**
@@ -368,22 +596,24 @@ public class MainController {
         });
 
         Optional<Group> result = dialog.showAndWait();
-        result.ifPresent(group -> {
-            try {
-                groupService.createGroup(group);
-                loadGroups();
-                showInfo("Группа \"" + group.getGroupCode() + "\" успешно создана");
-                logger.info("Group created: {}", group.getGroupCode());
-            } catch (Exception e) {
-                logger.error("Error creating group", e);
-                String errorMsg = e.getMessage();
-                if (errorMsg != null && errorMsg.contains("duplicate key")) {
-                    showError("Ошибка: Группа с таким кодом уже существует.");
-                } else {
-                    showError("Ошибка при добавлении группы: " + errorMsg);
-                }
-            }
-        });
+        result.ifPresent(group -> tasks.run("Создание группы",
+                () -> {
+                    groupService.createGroup(group);
+                    return null;
+                },
+                ignored -> {
+                    loadGroups();
+                    showInfo("Группа \"" + group.getGroupCode() + "\" успешно создана");
+                    logger.info("Group created: {}", group.getGroupCode());
+                },
+                e -> {
+                    String errorMsg = e.getMessage();
+                    if (errorMsg != null && errorMsg.contains("duplicate key")) {
+                        showError("Ошибка: Группа с таким кодом уже существует.");
+                    } else {
+                        showError("Ошибка при добавлении группы: " + errorMsg);
+                    }
+                }));
     }
 
     @FXML
@@ -407,20 +637,21 @@ public class MainController {
 
         Optional<ButtonType> result = confirmDialog.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                groupService.deleteGroupById(selectedGroup.getId());
-                
-                loadGroups();
-                groupListView.getSelectionModel().clearSelection();
-                disciplineListView.getItems().clear();
-                ratingsTable.getItems().clear();
-                
-                showInfo("Группа \"" + selectedGroup.getGroupCode() + "\" успешно удалена");
-                logger.info("Group deleted: {}", selectedGroup.getGroupCode());
-            } catch (Exception e) {
-                logger.error("Error deleting group", e);
-                showError("Ошибка при удалении группы: " + e.getMessage());
-            }
+            tasks.run("Удаление группы",
+                    () -> {
+                        groupService.deleteGroupById(selectedGroup.getId());
+                        return null;
+                    },
+                    ignored -> {
+                        loadGroups();
+                        groupListView.getSelectionModel().clearSelection();
+                        disciplineListView.getItems().clear();
+                        ratingsPager.clear();
+
+                        showInfo("Группа \"" + selectedGroup.getGroupCode() + "\" успешно удалена");
+                        logger.info("Group deleted: {}", selectedGroup.getGroupCode());
+                    },
+                    e -> showError("Ошибка при удалении группы: " + e.getMessage()));
         }
     }
 
@@ -433,25 +664,37 @@ public class MainController {
                 return;
             }
 
-            FileChooser fileChooser = new FileChooser();
-            fileChooser.setTitle("Сохранить отчёт как PDF");
-            fileChooser.setInitialFileName(selectedGroup.getGroupCode() + "_report.pdf");
-            fileChooser.getExtensionFilters().add(
-                    new FileChooser.ExtensionFilter("PDF Files", "*.pdf")
-            );
+            FileChooser fileChooser = exportFileChooser("Сохранить отчёт", selectedGroup.getGroupCode() + "_report", false);
             Stage stage = (Stage) menuBar.getScene().getWindow();
             java.io.File file = fileChooser.showSaveDialog(stage);
             
             if (file != null) {
-                Map<String, Double> summary = ratingService.getSummaryByGroup(selectedGroup.getId());
-                
-                PDFExporter.exportSummaryToPDF(file.getAbsolutePath(), selectedGroup.getGroupCode(), summary);
-                showInfo("PDF успешно экспортирован в:\n" + file.getAbsolutePath());
-                logger.info("PDF exported for group: {}", selectedGroup.getGroupCode());
+                String format = exportFormat(file);
+                // Сводка - средние по дисциплинам, а не рейтинги студентов: импортировать из неё нечего
+                if (format.equals("ratings")) {
+                    showError("Файл данных для импорта (*.ratings.csv) можно сохранить только из полного отчёта.\n"
+                            + "Для сводки выберите PDF, CSV или XLSX");
+                    return;
+                }
+                tasks.run("Экспорт сводки в " + format.toUpperCase(),
+                        () -> {
+                            Map<String, Double> summary = ratingService.getSummaryByGroup(selectedGroup.getId());
+                            switch (format) {
+                                case "csv" -> CSVExporter.exportSummaryToCSV(file.getAbsolutePath(), selectedGroup.getGroupCode(), summary);
+                                case "xlsx" -> XLSXExporter.exportSummaryToXLSX(file.getAbsolutePath(), selectedGroup.getGroupCode(), summary);
+                                default -> PDFExporter.exportSummaryToPDF(file.getAbsolutePath(), selectedGroup.getGroupCode(), summary);
+                            }
+                            return null;
+                        },
+                        ignored -> {
+                            showInfo("Отчёт успешно экспортирован в:\n" + file.getAbsolutePath());
+                            logger.info("Summary exported as {} for group: {}", format, selectedGroup.getGroupCode());
+                        },
+                        e -> showError("Ошибка при экспорте: " + e.getMessage()));
             }
         } catch (Exception e) {
-            logger.error("Error exporting to PDF", e);
-            showError("Ошибка при экспорте в PDF: " + e.getMessage());
+            logger.error("Error exporting summary", e);
+            showError("Ошибка при экспорте: " + e.getMessage());
         }
     }
 
@@ -464,43 +707,59 @@ public class MainController {
                 return;
             }
 
-            FileChooser fileChooser = new FileChooser();
-            fileChooser.setTitle("Сохранить полный отчёт как PDF");
-            fileChooser.setInitialFileName(selectedGroup.getGroupCode() + "_full_report.pdf");
-            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF Files", "*.pdf"));
+            FileChooser fileChooser = exportFileChooser("Сохранить полный отчёт", selectedGroup.getGroupCode() + "_full_report", true);
             Stage stage = (Stage) menuBar.getScene().getWindow();
             java.io.File file = fileChooser.showSaveDialog(stage);
             
             if (file != null) {
-                List<Discipline> disciplines = disciplineService.getDisciplinesByGroup(selectedGroup.getId());
-                List<String[]> dataList = new ArrayList<>();
-                
-                for (Discipline d : disciplines) {
-                    List<Rating> ratings = ratingService.getRatingsByDiscipline(d.getId());
-                    for (Rating r : ratings) {
-                        dataList.add(new String[]{
-                            d.getDisciplineCode(),
-                            String.valueOf(r.getStudentNumber()),
-                            r.getStudentName(),
-                            String.format("%.2f", r.getRating())
-                        });
+                Task<Void> exportTask = new Task<Void>() {
+                    @Override
+                    protected Void call() throws Exception {
+                        String format = exportFormat(file);
+                        updateMessage("Формирование " + format.toUpperCase() + " по группе " + selectedGroup.getGroupCode());
+                        String[] headers = {"Дисциплина", "№", "ФИО Студента", "Рейтинг"};
+
+                        // Строки идут из курсора прямо в файл, не копясь в памяти
+                        try (Stream<ReportRow> rows = reportService.streamGroupReport(selectedGroup.getId())) {
+                            String title = "Полный отчёт по группе " + selectedGroup.getGroupCode();
+                            switch (format) {
+                                case "ratings" -> CSVExporter.exportRatingsData(file.getAbsolutePath(), rows
+                                        .takeWhile(row -> !isCancelled())
+                                        .filter(row -> row.getRating() != null)
+                                        .map(row -> new RatingsFormat.Record(
+                                                row.getGroup().getGroupCode(),
+                                                row.getDiscipline().getDisciplineCode(),
+                                                row.getRating().getStudentNumber(),
+                                                row.getRating().getStudentName(),
+                                                row.getRating().getRating()))
+                                        .iterator());
+                                case "csv" -> CSVExporter.exportFullReportToCSV(file.getAbsolutePath(), title, headers, reportRows(rows));
+                                case "xlsx" -> XLSXExporter.exportFullReportToXLSX(file.getAbsolutePath(), title, headers, reportRows(rows));
+                                default -> PDFExporter.exportFullReportToPDF(file.getAbsolutePath(), title, headers, reportRows(rows));
+                            }
+                        }
+                        if (isCancelled() && !file.delete()) {
+                            logger.warn("Could not delete cancelled export: {}", file);
+                        }
+                        return null;
                     }
-                }
-                
-                String[][] data = new String[dataList.size()][4];
-                for (int i = 0; i < dataList.size(); i++) {
-                    data[i] = dataList.get(i);
-                }
-                
-                String[] headers = {"Дисциплина", "№", "ФИО Студента", "Рейтинг"};
-                PDFExporter.exportFullReportToPDF(
-                    file.getAbsolutePath(), 
-                    "Полный отчёт по группе " + selectedGroup.getGroupCode(),
-                    headers, 
-                    data
-                );
-                
-                showInfo("Полный отчёт успешно экспортирован");
+
+                    private Iterator<String[]> reportRows(Stream<ReportRow> rows) {
+                        return rows
+                                .takeWhile(row -> !isCancelled())
+                                .filter(row -> row.getRating() != null)
+                                .map(row -> new String[]{
+                                    row.getDiscipline().getDisciplineCode(),
+                                    String.valueOf(row.getRating().getStudentNumber()),
+                                    row.getRating().getStudentName(),
+                                    String.format("%.2f", row.getRating().getRating())
+                                })
+                                .iterator();
+                    }
+                };
+                tasks.run(exportTask,
+                        ignored -> showInfo("Полный отчёт успешно экспортирован"),
+                        e -> showError("Ошибка при экспорте: " + e.getMessage()));
             }
         } catch (Exception e) {
             logger.error("Error exporting full report", e);
@@ -508,6 +767,97 @@ public class MainController {
         }
     }
 
+    /**
+     * Диалог сохранения отчёта: формат выбирается фильтром или расширением файла.
+     * ratingsData - предложить и машинный формат для точного импорта (*.ratings.csv)
+     */
+    private static FileChooser exportFileChooser(String title, String baseName, boolean ratingsData) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(title);
+        fileChooser.setInitialFileName(baseName + ".pdf");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("PDF Files", "*.pdf"),
+                new FileChooser.ExtensionFilter("CSV Files", "*.csv"),
+                new FileChooser.ExtensionFilter("Excel Files", "*.xlsx")
+        );
+        if (ratingsData) {
+            fileChooser.getExtensionFilters().add(
+                    new FileChooser.ExtensionFilter("Данные для импорта", "*.ratings.csv"));
+        }
+        return fileChooser;
+    }
+
+    /**
+     * Формат экспорта по расширению: pdf, csv, xlsx или ratings (машинный формат RatingsFormat)
+     */
+    private static String exportFormat(File file) {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".ratings.csv")) {
+            return "ratings";
+        }
+        if (name.endsWith(".csv")) {
+            return "csv";
+        }
+        if (name.endsWith(".xlsx")) {
+            return "xlsx";
+        }
+        return "pdf";
+    }
+
+    /**
+     * Пакетный экспорт сводок и отчётов по дисциплинам для выбранных групп (или всех) в папку или ZIP
+     */
+    @FXML
+    private void handleBatchExport() {
+        List<Group> groups = new ArrayList<>(groupsTable.getSelectionModel().getSelectedItems());
+        if (groups.isEmpty()) {
+            groups = new ArrayList<>(groupsList);
+        }
+        if (groups.isEmpty()) {
+            showError("Нет групп для экспорта");
+            return;
+        }
+
+        String toDirectory = "Папка";
+        String toZip = "ZIP-архив";
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(toZip, toZip, toDirectory);
+        styleDialog(dialog);
+        dialog.setTitle("Пакетный экспорт");
+        dialog.setHeaderText("Экспорт сводок и отчётов по дисциплинам: " + groups.size() + " групп");
+        dialog.setContentText("Сохранить в:");
+        Optional<String> format = dialog.showAndWait();
+        if (format.isEmpty()) {
+            return;
+        }
+
+        Stage stage = (Stage) menuBar.getScene().getWindow();
+        BatchExportTask exportTask;
+        if (format.get().equals(toZip)) {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Сохранить отчёты как ZIP");
+            fileChooser.setInitialFileName("reports.zip");
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("ZIP Files", "*.zip"));
+            File file = fileChooser.showSaveDialog(stage);
+            if (file == null) {
+                return;
+            }
+            exportTask = BatchExportTask.toZip(groups, file, batchExportThreads);
+        } else {
+            DirectoryChooser directoryChooser = new DirectoryChooser();
+            directoryChooser.setTitle("Папка для отчётов");
+            File directory = directoryChooser.showDialog(stage);
+            if (directory == null) {
+                return;
+            }
+            exportTask = BatchExportTask.toDirectory(groups, directory, batchExportThreads);
+        }
+
+        tasks.run(exportTask,
+                result -> showInfo(String.format("Экспортировано документов: %d за %.1f с (%.1f док/с)",
+                        result.getDocuments(), result.getElapsedMillis() / 1000.0, result.getDocumentsPerSecond())),
+                e -> showError("Ошибка пакетного экспорта: " + errorMessage(e)));
+    }
+
     @FXML
     private void handleLogout() {
         Stage stage = (Stage) menuBar.getScene().getWindow();
@@ -531,13 +881,7 @@ public class MainController {
      */
     @FXML
     private void loadUsers() {
-        try {
-            List<User> users = userService.getAllUsers();
-            usersTable.setItems(FXCollections.observableArrayList(users));
-            logger.info("Loaded {} users", users.size());
-        } catch (Exception e) {
-            logger.error("Error loading users", e);
-        }
+        usersPager.load(userService::getUsersPage);
     }
 
     @FXML
@@ -565,14 +909,16 @@ public class MainController {
 
         Optional<ButtonType> result = confirm.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                userService.deleteUser(selectedUser.getId());
-                loadUsers();
-                showInfo("Пользователь удален");
-            } catch (Exception e) {
-                logger.error("Error deleting user", e);
-                showError("Ошибка при удалении пользователя");
-            }
+            tasks.run("Удаление пользователя",
+                    () -> {
+                        userService.deleteUser(selectedUser.getId());
+                        return null;
+                    },
+                    ignored -> {
+                        loadUsers();
+                        showInfo("Пользователь удален");
+                    },
+                    e -> showError("Ошибка при удалении пользователя"));
         }
     }
 
@@ -601,16 +947,13 @@ public class MainController {
         dialog.setContentText("Роль:");
 
         Optional<User.UserRole> result = dialog.showAndWait();
-        result.ifPresent(newRole -> {
-            try {
-                userService.updateUserRole(selectedUser.getId(), newRole);
-                loadUsers();
-                showInfo("Роль пользователя " + selectedUser.getUsername() + " изменена на " + newRole.getDisplayName());
-            } catch (Exception e) {
-                logger.error("Error updating user role", e);
-                showError("Ошибка при обновлении роли");
-            }
-        });
+        result.ifPresent(newRole -> tasks.run("Изменение роли",
+                () -> userService.updateUserRole(selectedUser.getId(), newRole),
+                updated -> {
+                    loadUsers();
+                    showInfo("Роль пользователя " + selectedUser.getUsername() + " изменена на " + newRole.getDisplayName());
+                },
+                e -> showError("Ошибка при обновлении роли")));
     }
 
     /**
@@ -629,33 +972,27 @@ public class MainController {
      * Загрузить дисциплины для выбранной группы
      */
     private void loadDisciplinesForGroup(int groupId) {
-        try {
-            ObservableList<Discipline> disciplines = FXCollections.observableArrayList(
-                    disciplineService.getDisciplinesByGroup(groupId)
-            );
-            disciplineListView.setItems(disciplines);
-            ratingsTable.getItems().clear();
-        } catch (Exception e) {
-            logger.error("Error loading disciplines", e);
-            showError("Ошибка загрузки дисциплин");
-        }
+        tasks.run("Загрузка дисциплин", () -> disciplineService.getDisciplinesByGroup(groupId),
+                disciplines -> {
+                    // Пока шёл запрос, пользователь мог выбрать другую группу
+                    Group selected = groupListView.getSelectionModel().getSelectedItem();
+                    if (selected != null && selected.getId() != groupId) {
+                        return;
+                    }
+                    disciplineListView.setItems(FXCollections.observableArrayList(disciplines));
+                    ratingsPager.clear();
+                },
+                e -> showError("Ошибка загрузки дисциплин"));
     }
 
     /**
      * Загрузить рейтинги для выбранной дисциплины
      */
     private void loadRatingsForDiscipline(int disciplineId) {
-        try {
-            logger.info("Loading ratings for discipline: {}", disciplineId);
-            ObservableList<Rating> ratings = FXCollections.observableArrayList(
-                    ratingService.getRatingsByDiscipline(disciplineId)
-            );
-            logger.info("Loaded {} ratings", ratings.size());
-            ratingsTable.setItems(ratings);
-        } catch (Exception e) {
-            logger.error("Error loading ratings", e);
-            showError("Ошибка загрузки рейтингов");
-        }
+        logger.info("Loading ratings for discipline: {}", disciplineId);
+        // Страницы предыдущей дисциплины, если они ещё загружаются, будут отброшены
+        ratingsPager.load((afterStudentNumber, limit) -> ratingService.getRatingsPage(
+                disciplineId, afterStudentNumber != null ? afterStudentNumber : Integer.MIN_VALUE, limit));
     }
 
     @FXML
@@ -706,30 +1043,33 @@ public class MainController {
         });
 
         Optional<String> result = dialog.showAndWait();
-        result.ifPresent(code -> {
-            try {
-                // Проверить лимит дисциплин
-                int currentCount = disciplineService.getDisciplinesByGroup(selectedGroup.getId()).size();
-                if (currentCount >= selectedGroup.getDisciplineCount()) {
-                    showError("Ошибка: Превышен лимит дисциплин для этой группы (макс: " + selectedGroup.getDisciplineCount() + ")");
-                    return;
-                }
-
-                Discipline discipline = new Discipline(selectedGroup.getId(), code);
-                disciplineService.createDiscipline(discipline);
-                loadDisciplinesForGroup(selectedGroup.getId());
-                showInfo("Дисциплина \"" + code + "\" добавлена");
-                logger.info("Discipline created: {}", code);
-            } catch (Exception e) {
-                logger.error("Error creating discipline", e);
-                String errorMsg = e.getMessage();
-                if (errorMsg != null && errorMsg.contains("duplicate key")) {
-                    showError("Ошибка: Дисциплина с таким кодом уже существует в этой группе.");
-                } else {
-                    showError("Ошибка при добавлении дисциплины: " + errorMsg);
-                }
-            }
-        });
+        result.ifPresent(code -> tasks.run("Добавление дисциплины",
+                () -> {
+                    // Проверить лимит дисциплин
+                    int currentCount = disciplineService.getDisciplinesByGroup(selectedGroup.getId()).size();
+                    if (currentCount >= selectedGroup.getDisciplineCount()) {
+                        return false;
+                    }
+                    disciplineService.createDiscipline(new Discipline(selectedGroup.getId(), code));
+                    return true;
+                },
+                created -> {
+                    if (!created) {
+                        showError("Ошибка: Превышен лимит дисциплин для этой группы (макс: " + selectedGroup.getDisciplineCount() + ")");
+                        return;
+                    }
+                    loadDisciplinesForGroup(selectedGroup.getId());
+                    showInfo("Дисциплина \"" + code + "\" добавлена");
+                    logger.info("Discipline created: {}", code);
+                },
+                e -> {
+                    String errorMsg = e.getMessage();
+                    if (errorMsg != null && errorMsg.contains("duplicate key")) {
+                        showError("Ошибка: Дисциплина с таким кодом уже существует в этой группе.");
+                    } else {
+                        showError("Ошибка при добавлении дисциплины: " + errorMsg);
+                    }
+                }));
     }
 
     @FXML
@@ -752,19 +1092,21 @@ public class MainController {
 
         Optional<ButtonType> result = confirm.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                disciplineService.deleteDiscipline(selectedDiscipline.getId());
-                Group selectedGroup = groupListView.getSelectionModel().getSelectedItem();
-                if (selectedGroup != null) {
-                    loadDisciplinesForGroup(selectedGroup.getId());
-                }
-                ratingsTable.getItems().clear();
-                showInfo("Дисциплина удалена");
-                logger.info("Discipline deleted: {}", selectedDiscipline.getId());
-            } catch (Exception e) {
-                logger.error("Error deleting discipline", e);
-                showError("Ошибка при удалении дисциплины");
-            }
+            tasks.run("Удаление дисциплины",
+                    () -> {
+                        disciplineService.deleteDiscipline(selectedDiscipline.getId());
+                        return null;
+                    },
+                    ignored -> {
+                        Group selectedGroup = groupListView.getSelectionModel().getSelectedItem();
+                        if (selectedGroup != null) {
+                            loadDisciplinesForGroup(selectedGroup.getId());
+                        }
+                        ratingsPager.clear();
+                        showInfo("Дисциплина удалена");
+                        logger.info("Discipline deleted: {}", selectedDiscipline.getId());
+                    },
+                    e -> showError("Ошибка при удалении дисциплины"));
         }
     }
 
@@ -812,21 +1154,22 @@ public class MainController {
 
         Optional<String> result = dialog.showAndWait();
         result.ifPresent(code -> {
-            try {
-                selectedDiscipline.setDisciplineCode(code);
-                disciplineService.updateDiscipline(selectedDiscipline);
-                
-                Group selectedGroup = groupListView.getSelectionModel().getSelectedItem();
-                if (selectedGroup != null) {
-                    loadDisciplinesForGroup(selectedGroup.getId());
-                }
-                
-                showInfo("Дисциплина обновлена");
-                logger.info("Discipline updated: {}", code);
-            } catch (Exception e) {
-                logger.error("Error updating discipline", e);
-                showError("Ошибка при обновлении дисциплины: " + e.getMessage());
-            }
+            selectedDiscipline.setDisciplineCode(code);
+            tasks.run("Переименование дисциплины",
+                    () -> {
+                        disciplineService.updateDiscipline(selectedDiscipline);
+                        return null;
+                    },
+                    ignored -> {
+                        Group selectedGroup = groupListView.getSelectionModel().getSelectedItem();
+                        if (selectedGroup != null) {
+                            loadDisciplinesForGroup(selectedGroup.getId());
+                        }
+
+                        showInfo("Дисциплина обновлена");
+                        logger.info("Discipline updated: {}", code);
+                    },
+                    e -> showError("Ошибка при обновлении дисциплины: " + e.getMessage()));
         });
     }
 
@@ -921,40 +1264,49 @@ public class MainController {
         });
 
         Optional<Rating> result = dialog.showAndWait();
-        result.ifPresent(rating -> {
-            try {
-                // Проверить, существует ли уже рейтинг для этого студента
-                Rating existing = ratingService.getRatingByStudent(rating.getDisciplineId(), rating.getStudentNumber());
-                
-                if (existing != null) {
-                    Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
-                    styleDialog(confirm);
-                    confirm.setTitle("Рейтинг уже существует");
-                    confirm.setHeaderText("Студент №" + rating.getStudentNumber() + " уже имеет оценку.");
-                    confirm.setContentText("Вы хотите обновить существующую оценку (" + existing.getRating() + ") на новую (" + rating.getRating() + ")?");
-                    
-                    Optional<ButtonType> confirmResult = confirm.showAndWait();
-                    if (confirmResult.isPresent() && confirmResult.get() == ButtonType.OK) {
-                        existing.setRating(rating.getRating());
-                        existing.setStudentName(rating.getStudentName());
-                        ratingService.updateRating(existing);
-                        loadRatingsForDiscipline(selectedDiscipline.getId());
-                        showInfo("Рейтинг обновлен");
-                        logger.info("Rating updated for student {} in discipline {}", rating.getStudentName(), selectedDiscipline.getId());
+        // Проверить, существует ли уже рейтинг для этого студента
+        result.ifPresent(rating -> tasks.run("Проверка рейтинга",
+                () -> ratingService.getRatingByStudent(rating.getDisciplineId(), rating.getStudentNumber()),
+                existing -> {
+                    if (existing != null) {
+                        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+                        styleDialog(confirm);
+                        confirm.setTitle("Рейтинг уже существует");
+                        confirm.setHeaderText("Студент №" + rating.getStudentNumber() + " уже имеет оценку.");
+                        confirm.setContentText("Вы хотите обновить существующую оценку (" + existing.getRating() + ") на новую (" + rating.getRating() + ")?");
+
+                        Optional<ButtonType> confirmResult = confirm.showAndWait();
+                        if (confirmResult.isPresent() && confirmResult.get() == ButtonType.OK) {
+                            existing.setRating(rating.getRating());
+                            existing.setStudentName(rating.getStudentName());
+                            tasks.run("Обновление рейтинга",
+                                    () -> {
+                                        ratingService.updateRating(existing);
+                                        return null;
+                                    },
+                                    ignored -> {
+                                        loadRatingsForDiscipline(selectedDiscipline.getId());
+                                        showInfo("Рейтинг обновлен");
+                                        logger.info("Rating updated for student {} in discipline {}", rating.getStudentName(), selectedDiscipline.getId());
+                                    },
+                                    e -> showError("Ошибка при добавлении рейтинга: " + e.getMessage()));
+                        }
+                        return;
                     }
-                    return;
-                }
 
-                ratingService.addRating(rating);
-                loadRatingsForDiscipline(selectedDiscipline.getId());
-                showInfo("Рейтинг добавлен: " + rating.getStudentName() + " - " + rating.getRating());
-                logger.info("Rating added for student {} in discipline {}", rating.getStudentName(), selectedDiscipline.getId());
-            } catch (Exception e) {
-                logger.error("Error adding rating", e);
-                String errorMsg = e.getMessage();
-                showError("Ошибка при добавлении рейтинга: " + errorMsg);
-            }
-        });
+                    tasks.run("Добавление рейтинга",
+                            () -> {
+                                ratingService.addRating(rating);
+                                return null;
+                            },
+                            ignored -> {
+                                loadRatingsForDiscipline(selectedDiscipline.getId());
+                                showInfo("Рейтинг добавлен: " + rating.getStudentName() + " - " + rating.getRating());
+                                logger.info("Rating added for student {} in discipline {}", rating.getStudentName(), selectedDiscipline.getId());
+                            },
+                            e -> showError("Ошибка при добавлении рейтинга: " + e.getMessage()));
+                },
+                e -> showError("Ошибка при добавлении рейтинга: " + e.getMessage())));
     }
 
     @FXML
@@ -1032,17 +1384,17 @@ public class MainController {
         });
 
         Optional<Rating> result = dialog.showAndWait();
-        result.ifPresent(updatedRating -> {
-            try {
-                ratingService.updateRating(updatedRating);
-                loadRatingsForDiscipline(selectedDiscipline.getId());
-                showInfo("Данные обновлены");
-                logger.info("Rating updated for student {} in discipline {}", updatedRating.getStudentName(), selectedDiscipline.getId());
-            } catch (Exception e) {
-                logger.error("Error updating rating", e);
-                showError("Ошибка при обновлении: " + e.getMessage());
-            }
-        });
+        result.ifPresent(updatedRating -> tasks.run("Обновление рейтинга",
+                () -> {
+                    ratingService.updateRating(updatedRating);
+                    return null;
+                },
+                ignored -> {
+                    loadRatingsForDiscipline(selectedDiscipline.getId());
+                    showInfo("Данные обновлены");
+                    logger.info("Rating updated for student {} in discipline {}", updatedRating.getStudentName(), selectedDiscipline.getId());
+                },
+                e -> showError("Ошибка при обновлении: " + e.getMessage())));
     }
 
     @FXML
@@ -1065,19 +1417,20 @@ public class MainController {
 
         Optional<ButtonType> result = confirm.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                ratingService.deleteRating(selectedRating.getId());
-                
-                Discipline selectedDiscipline = disciplineListView.getSelectionModel().getSelectedItem();
-                if (selectedDiscipline != null) {
-                    loadRatingsForDiscipline(selectedDiscipline.getId());
-                }
-                showInfo("Рейтинг удалён");
-                logger.info("Rating deleted: {}", selectedRating.getId());
-            } catch (Exception e) {
-                logger.error("Error deleting rating", e);
-                showError("Ошибка при удалении рейтинга: " + e.getMessage());
-            }
+            tasks.run("Удаление рейтинга",
+                    () -> {
+                        ratingService.deleteRating(selectedRating.getId());
+                        return null;
+                    },
+                    ignored -> {
+                        Discipline selectedDiscipline = disciplineListView.getSelectionModel().getSelectedItem();
+                        if (selectedDiscipline != null) {
+                            loadRatingsForDiscipline(selectedDiscipline.getId());
+                        }
+                        showInfo("Рейтинг удалён");
+                        logger.info("Rating deleted: {}", selectedRating.getId());
+                    },
+                    e -> showError("Ошибка при удалении рейтинга: " + e.getMessage()));
         }
     }
 
@@ -1116,104 +1469,124 @@ public class MainController {
         }
 
         FileChooser fileChooser = new FileChooser();
-        fileChooser.setTitle("Выберите PDF отчет для импорта");
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF Files", "*.pdf"));
+        fileChooser.setTitle("Выберите отчет или файл данных для импорта");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("PDF и файлы данных", "*.pdf", "*.csv"),
+                new FileChooser.ExtensionFilter("PDF Files", "*.pdf"),
+                new FileChooser.ExtensionFilter("Данные для импорта", "*.csv")
+        );
         File selectedFile = fileChooser.showOpenDialog(tabPane.getScene().getWindow());
 
         if (selectedFile != null) {
-            try {
-                PDFImporter.ImportedData data = PDFImporter.importDisciplineRatings(selectedFile.getAbsolutePath());
-                
-                // Показать превью данных
-                StringBuilder preview = new StringBuilder();
-                preview.append("Группа: ").append(data.groupCode).append("\n");
-                preview.append("Дисциплина: ").append(data.disciplineName).append("\n");
-                preview.append("Найдено студентов: ").append(data.students.size()).append("\n\n");
-                preview.append("Вы хотите импортировать эти данные?");
-
-                Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
-                styleDialog(confirm);
-                confirm.setTitle("Подтверждение импорта");
-                confirm.setHeaderText("Обнаружены данные в PDF");
-                confirm.setContentText(preview.toString());
-
-                Optional<ButtonType> result = confirm.showAndWait();
-                if (result.isPresent() && result.get() == ButtonType.OK) {
-                    processImportedData(data);
-                }
-            } catch (Exception e) {
-                logger.error("Error importing PDF", e);
-                String errorMsg = e.getMessage();
-                if (errorMsg == null || errorMsg.isEmpty()) errorMsg = e.toString();
-                showError("Ошибка при чтении PDF: " + errorMsg + "\n\nУбедитесь, что вы выбираете файл 'Рейтинги студентов по дисциплине', а не сводку.");
-            }
+            // Сначала ищутся структурированные данные (файл данных или вложение PDF), текст PDF - только для старых отчётов
+            tasks.run("Чтение файла",
+                    () -> RatingsImporter.summarize(selectedFile.getAbsolutePath()),
+                    summary -> {
+                        if (summary == null) {
+                            importFromPdfText(selectedFile);
+                        } else {
+                            confirmStructuredImport(selectedFile, summary);
+                        }
+                    },
+                    e -> showError("Ошибка при чтении файла: " + errorMessage(e)));
         }
     }
 
-    private void processImportedData(PDFImporter.ImportedData data) {
-        try {
-            // 1. Найти или создать группу
-            Group group = groupService.getGroupByCode(data.groupCode);
-            if (group == null) {
-                group = new Group(0, data.groupCode, data.students.size(), 1);
-                groupService.createGroup(group);
-                group = groupService.getGroupByCode(data.groupCode);
-                logger.info("Created new group during import: {}", data.groupCode);
-            }
+    /**
+     * Подтвердить и выполнить точный импорт: записи читаются из файла второй раз и сразу пишутся пакетами
+     */
+    private void confirmStructuredImport(File file, RatingsImporter.Summary summary) {
+        StringBuilder preview = new StringBuilder();
+        preview.append("Групп: ").append(summary.getGroups().size());
+        if (summary.getGroups().size() == 1) {
+            preview.append(" (").append(summary.getGroups().iterator().next()).append(")");
+        }
+        preview.append("\n");
+        preview.append("Дисциплин: ").append(summary.getDisciplines()).append("\n");
+        preview.append("Записей: ").append(summary.getRows()).append("\n\n");
+        preview.append("Вы хотите импортировать эти данные?");
 
-            // 2. Найти или создать дисциплину
-            List<Discipline> disciplines = disciplineService.getDisciplinesByGroup(group.getId());
-            Discipline targetDisc = null;
-            for (Discipline d : disciplines) {
-                if (d.getDisciplineCode().equalsIgnoreCase(data.disciplineName)) {
-                    targetDisc = d;
-                    break;
-                }
-            }
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+        styleDialog(confirm);
+        confirm.setTitle("Подтверждение импорта");
+        confirm.setHeaderText(summary.isFromPdf() ? "Обнаружены встроенные данные PDF" : "Обнаружен файл данных");
+        confirm.setContentText(preview.toString());
 
-            if (targetDisc == null) {
-                targetDisc = new Discipline(0, group.getId(), data.disciplineName);
-                disciplineService.createDiscipline(targetDisc);
-                // Перезагружаем чтобы получить ID
-                disciplines = disciplineService.getDisciplinesByGroup(group.getId());
-                for (Discipline d : disciplines) {
-                    if (d.getDisciplineCode().equalsIgnoreCase(data.disciplineName)) {
-                        targetDisc = d;
-                        break;
-                    }
-                }
-            }
+        Optional<ButtonType> result = confirm.showAndWait();
+        if (result.isPresent() && result.get() == ButtonType.OK) {
+            tasks.run("Импорт рейтингов",
+                    () -> {
+                        try (RatingsFormat.RecordReader records = RatingsImporter.open(file.getAbsolutePath())) {
+                            return importService.importRatings(records);
+                        }
+                    },
+                    imported -> {
+                        loadGroups();
+                        showInfo("Успешно импортировано " + imported.getRows() + " записей ("
+                                + imported.getDisciplines() + " дисциплин)" + limitChangesText(imported));
+                        logger.info("Imported {} ratings from {}", imported.getRows(), file.getName());
+                    },
+                    e -> showError("Ошибка при сохранении данных: " + errorMessage(e)));
+        }
+    }
 
-            // 3. Импорт рейтингов
-            int importedCount = 0;
-            for (int i = 0; i < data.students.size(); i++) {
-                String[] student = data.students.get(i);
-                String name = student[0];
-                double ratingVal = Double.parseDouble(student[1]);
-                int studentNum = i + 1;
+    /**
+     * Импорт по тексту страниц PDF - для отчётов без встроенных данных
+     */
+    private void importFromPdfText(File selectedFile) {
+        tasks.run("Чтение PDF",
+                () -> PDFImporter.importDisciplineRatings(selectedFile.getAbsolutePath()),
+                data -> {
+                    // Показать превью данных
+                    StringBuilder preview = new StringBuilder();
+                    preview.append("Группа: ").append(data.groupCode).append("\n");
+                    preview.append("Дисциплина: ").append(data.disciplineName).append("\n");
+                    preview.append("Найдено студентов: ").append(data.students.size()).append("\n\n");
+                    preview.append("Вы хотите импортировать эти данные?");
 
-                Rating rating = new Rating(targetDisc.getId(), studentNum, name, ratingVal);
-                
-                // Проверяем существование
-                Rating existing = ratingService.getRatingByStudent(targetDisc.getId(), studentNum);
-                if (existing != null) {
-                    existing.setRating(ratingVal);
-                    existing.setStudentName(name);
-                    ratingService.updateRating(existing);
-                } else {
-                    ratingService.addRating(rating);
-                }
-                importedCount++;
-            }
+                    Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+                    styleDialog(confirm);
+                    confirm.setTitle("Подтверждение импорта");
+                    confirm.setHeaderText("Обнаружены данные в PDF");
+                    confirm.setContentText(preview.toString());
+
+                    Optional<ButtonType> result = confirm.showAndWait();
+                    if (result.isPresent() && result.get() == ButtonType.OK) {
+                        tasks.run("Импорт рейтингов", () -> processImportedData(data),
+                                imported -> {
+                                    loadGroups();
+                                    showInfo("Успешно импортировано " + imported.getRows() + " записей для группы "
+                                            + data.groupCode + limitChangesText(imported));
+                                    logger.info("Imported {} ratings from PDF", imported.getRows());
+                                },
+                                e -> showError("Ошибка при сохранении данных: " + e.getMessage()));
+                    }
+                },
+                e -> showError("Ошибка при чтении PDF: " + errorMessage(e) + "\n\nУбедитесь, что вы выбираете файл 'Рейтинги студентов по дисциплине', а не сводку."));
+    }
 
-            loadGroups();
-            showInfo("Успешно импортировано " + importedCount + " записей для группы " + data.groupCode);
-            logger.info("Imported {} ratings from PDF", importedCount);
+    /**
+     * Созданные группы и поднятые импортом лимиты - пользователь должен их увидеть
+     */
+    private static String limitChangesText(ImportService.ImportResult imported) {
+        if (imported.getLimitChanges().isEmpty()) {
+            return "";
+        }
+        return "\n\nСозданные группы и изменённые лимиты:\n" + String.join("\n", imported.getLimitChanges());
+    }
 
-        } catch (Exception e) {
-            logger.error("Error processing imported data", e);
-            showError("Ошибка при сохранении данных: " + e.getMessage());
+    /**
+     * Сохранить импортированные данные (выполняется в фоновом потоке)
+     */
+    private ImportService.ImportResult processImportedData(PDFImporter.ImportedData data) throws Exception {
+        // Номер студента в отчёте - порядковый номер строки
+        List<RatingsFormat.Record> records = new ArrayList<>(data.students.size());
+        for (int i = 0; i < data.students.size(); i++) {
+            String[] student = data.students.get(i);
+            records.add(new RatingsFormat.Record(data.groupCode, data.disciplineName, i + 1,
+                    student[0], Double.parseDouble(student[1])));
         }
+        return importService.importRatings(records.iterator());
     }
 
     /**
@@ -1240,6 +1613,7 @@ public class MainController {
                 
                 Stage mainStage = (Stage) tabPane.getScene().getWindow();
                 mainStage.close();
+                db.removeChangeListener(changeListener);
                 
                 logger.info("User logged out: {}", currentUser.getUsername());
             } catch (Exception e) {
@@ -1282,34 +1656,47 @@ public class MainController {
      * Загрузить содержимое файла
      */
     private void loadFileContent() {
-        try {
+        tasks.run("Формирование отчёта", () -> {
             StringBuilder sb = new StringBuilder();
             sb.append("=== Информация о системе ===\n");
             sb.append("Пользователь: ").append(currentUser.getUsername()).append("\n");
             sb.append("Роль: ").append(currentUser.getRole().getDisplayName()).append("\n\n");
-            
+        
             sb.append("=== Группы в системе ===\n");
-            for (Group group : groupsList) {
-                sb.append("Группа: ").append(group.getGroupCode()).append("\n");
-                sb.append("  Студентов: ").append(group.getStudentCount()).append("\n");
-                sb.append("  Дисциплин: ").append(group.getDisciplineCount()).append("\n");
-                
-                List<Discipline> disciplines = disciplineService.getDisciplinesByGroup(group.getId());
-                for (Discipline d : disciplines) {
-                    sb.append("    Дисциплина: ").append(d.getDisciplineCode()).append("\n");
-                    List<Rating> ratings = ratingService.getRatingsByDiscipline(d.getId());
-                    for (Rating r : ratings) {
+            // Всё дерево группа -> дисциплина -> рейтинг читается одним упорядоченным запросом
+            try (Stream<ReportRow> rows = reportService.streamAllGroupsReport()) {
+                Group currentGroup = null;
+                Discipline currentDiscipline = null;
+                Iterator<ReportRow> it = rows.iterator();
+                while (it.hasNext()) {
+                    ReportRow row = it.next();
+                    if (row.getGroup() != currentGroup) {
+                        if (currentGroup != null) {
+                            sb.append("\n");
+                        }
+                        currentGroup = row.getGroup();
+                        currentDiscipline = null;
+                        sb.append("Группа: ").append(currentGroup.getGroupCode()).append("\n");
+                        sb.append("  Студентов: ").append(currentGroup.getStudentCount()).append("\n");
+                        sb.append("  Дисциплин: ").append(currentGroup.getDisciplineCount()).append("\n");
+                    }
+                    if (row.getDiscipline() != null && row.getDiscipline() != currentDiscipline) {
+                        currentDiscipline = row.getDiscipline();
+                        sb.append("    Дисциплина: ").append(currentDiscipline.getDisciplineCode()).append("\n");
+                    }
+                    Rating r = row.getRating();
+                    if (r != null) {
                         sb.append("      - Студент №").append(r.getStudentNumber())
                           .append(" (").append(r.getStudentName()).append("): ")
                           .append(r.getRating()).append("\n");
                     }
                 }
-                sb.append("\n");
+                if (currentGroup != null) {
+                    sb.append("\n");
+                }
             }
-            
-            contentArea.setText(sb.toString());
-        } catch (Exception e) {
-            logger.error("Error loading file content", e);
-        }
+        
+            return sb.toString();
+        }, contentArea::setText, null);
     }
 }
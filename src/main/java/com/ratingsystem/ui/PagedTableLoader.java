@@ -0,0 +1,152 @@
+package com.ratingsystem.ui;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+import javafx.util.Callback;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Постраничная подгрузка строк TableView по мере прокрутки (keyset-пагинация).
+ * Сначала запрашивается одна страница; следующая - когда таблица отрисовывает строку
+ * ближе PREFETCH_ROWS к концу загруженного. TableView создаёт строки только для видимой области,
+ * поэтому время первой отрисовки не зависит от размера таблицы в БД.
+ * Все методы вызываются из FX-потока
+ */
+public class PagedTableLoader<T, K> {
+
+    /**
+     * Загрузка страницы: не больше limit строк после afterKey (null - первая страница)
+     */
+    @FunctionalInterface
+    public interface PageFetcher<T, K> {
+        List<T> fetch(K afterKey, int limit) throws Exception;
+    }
+
+    private static final int PREFETCH_ROWS = 20;
+
+    private final String message;
+    private final int pageSize;
+    private final Function<T, K> keyOf;
+    private final Consumer<Throwable> onFailure;
+    private final BackgroundTaskRunner tasks = BackgroundTaskRunner.getInstance();
+    private final ObservableList<T> items = FXCollections.observableArrayList();
+
+    private PageFetcher<T, K> fetcher;
+    private K lastKey;
+    private boolean complete = true;
+    private boolean loading;
+    // Увеличивается при смене источника: страницы, запрошенные раньше, отбрасываются
+    private long generation;
+
+    public PagedTableLoader(TableView<T> table, String message, int pageSize,
+                            Function<T, K> keyOf, Consumer<Throwable> onFailure) {
+        this.message = message;
+        this.pageSize = pageSize;
+        this.keyOf = keyOf;
+        this.onFailure = onFailure;
+
+        table.setItems(items);
+        Callback<TableView<T>, TableRow<T>> baseFactory = table.getRowFactory();
+        table.setRowFactory(tv -> {
+            TableRow<T> row = baseFactory != null ? baseFactory.call(tv) : new TableRow<>();
+            row.indexProperty().addListener((obs, oldIndex, newIndex) -> onRowShown(newIndex.intValue()));
+            return row;
+        });
+    }
+
+    /**
+     * Показать данные нового источника с первой страницы
+     */
+    public void load(PageFetcher<T, K> fetcher) {
+        generation++;
+        this.fetcher = fetcher;
+        items.clear();
+        lastKey = null;
+        complete = false;
+        loading = false;
+        loadNextPage();
+    }
+
+    /**
+     * Перечитать текущий источник с первой страницы
+     */
+    public void reload() {
+        if (fetcher != null) {
+            load(fetcher);
+        }
+    }
+
+    /**
+     * Очистить таблицу и забыть источник
+     */
+    public void clear() {
+        generation++;
+        fetcher = null;
+        items.clear();
+        lastKey = null;
+        complete = true;
+        loading = false;
+    }
+
+    /**
+     * Загружены ли все строки источника. Пока нет, строка, которая по порядку попадает
+     * за последнюю загруженную, придёт с одной из следующих страниц
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public ObservableList<T> getItems() {
+        return items;
+    }
+
+    private void onRowShown(int index) {
+        if (index >= 0 && index >= items.size() - PREFETCH_ROWS) {
+            loadNextPage();
+        }
+    }
+
+    private void loadNextPage() {
+        if (complete || loading || fetcher == null) {
+            return;
+        }
+        loading = true;
+        long requestGeneration = generation;
+        PageFetcher<T, K> source = fetcher;
+        K after = lastKey;
+        Task<List<T>> task = tasks.run(message, () -> source.fetch(after, pageSize),
+                page -> {
+                    if (requestGeneration != generation) {
+                        return;
+                    }
+                    loading = false;
+                    if (!page.isEmpty()) {
+                        lastKey = keyOf.apply(page.get(page.size() - 1));
+                        items.addAll(page);
+                    }
+                    complete = page.size() < pageSize;
+                },
+                e -> {
+                    if (requestGeneration == generation) {
+                        loading = false;
+                        complete = true;
+                    }
+                    if (onFailure != null) {
+                        onFailure.accept(e);
+                    }
+                });
+        // Отменённую загрузку повторит следующая отрисованная строка
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_CANCELLED, event -> {
+            if (requestGeneration == generation) {
+                loading = false;
+            }
+        });
+    }
+}
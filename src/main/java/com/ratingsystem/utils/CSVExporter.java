@@ -0,0 +1,183 @@
+package com.ratingsystem.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Экспортер данных в CSV. Строки пишутся сразу в буферизованный поток,
+ * поэтому отчёт из курсора БД любого размера не копится в памяти.
+ * UTF-8 с BOM и разделитель ';' - так файл с кириллицей и десятичной запятой открывается в Excel
+ */
+public class CSVExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CSVExporter.class);
+
+    private static final char SEPARATOR = ';';
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Экспортировать сводку рейтингов в CSV
+     */
+    public static void exportSummaryToCSV(String filename, String groupCode,
+                                          Map<String, Double> disciplineRatings) {
+        try (OutputStream out = new FileOutputStream(filename)) {
+            exportSummaryToCSV(out, groupCode, disciplineRatings);
+            logger.info("CSV exported successfully to: {}", filename);
+        } catch (IOException e) {
+            logger.error("Error exporting to CSV", e);
+            throw new RuntimeException("CSV export failed", e);
+        }
+    }
+
+    /**
+     * Записать сводку рейтингов в поток (поток не закрывается)
+     */
+    public static void exportSummaryToCSV(OutputStream out, String groupCode,
+                                          Map<String, Double> disciplineRatings) {
+        try {
+            Writer writer = open(out);
+            writeRow(writer, "Группа", "Код дисциплины", "Общий рейтинг");
+            for (Map.Entry<String, Double> entry : disciplineRatings.entrySet()) {
+                writeRow(writer, groupCode, entry.getKey(), String.format("%.2f", entry.getValue()));
+            }
+            writer.flush();
+        } catch (IOException e) {
+            logger.error("Error exporting to CSV", e);
+            throw new RuntimeException("CSV export failed", e);
+        }
+    }
+
+    /**
+     * Экспортировать полный отчёт в CSV. Заголовок отчёта в CSV не пишется - только строка столбцов и данные
+     */
+    public static void exportFullReportToCSV(String filename, String title,
+                                             String[] headers, String[][] data) {
+        exportFullReportToCSV(filename, title, headers, Arrays.asList(data).iterator());
+    }
+
+    /**
+     * Экспортировать полный отчёт в CSV потоково
+     * @return число выведенных строк
+     */
+    public static int exportFullReportToCSV(String filename, String title,
+                                            String[] headers, Iterator<String[]> rows) {
+        try (OutputStream out = new FileOutputStream(filename)) {
+            Writer writer = open(out);
+            writeRow(writer, headers);
+            int count = 0;
+            while (rows.hasNext()) {
+                writeRow(writer, rows.next());
+                count++;
+            }
+            writer.flush();
+            logger.info("Full report exported successfully to: {} ({} rows)", filename, count);
+            return count;
+        } catch (IOException e) {
+            logger.error("Error exporting full report to CSV", e);
+            throw new RuntimeException("CSV export failed", e);
+        }
+    }
+
+    /**
+     * Экспортировать рейтинги по дисциплине с ФИО студентов
+     */
+    public static void exportDisciplineRatingsToCSV(String filename, String groupCode,
+                                                    String disciplineName, List<String[]> studentsData) {
+        try (OutputStream out = new FileOutputStream(filename)) {
+            exportDisciplineRatingsToCSV(out, groupCode, disciplineName, studentsData);
+            logger.info("Discipline ratings CSV exported successfully to: {}", filename);
+        } catch (IOException e) {
+            logger.error("Error exporting discipline ratings to CSV", e);
+            throw new RuntimeException("CSV export failed", e);
+        }
+    }
+
+    /**
+     * Записать рейтинги по дисциплине в поток (поток не закрывается)
+     */
+    public static void exportDisciplineRatingsToCSV(OutputStream out, String groupCode,
+                                                    String disciplineName, List<String[]> studentsData) {
+        try {
+            Writer writer = open(out);
+            writeRow(writer, "Группа", "Дисциплина", "№ п/п", "ФИО студента", "Рейтинг");
+            for (int i = 0; i < studentsData.size(); i++) {
+                String[] row = studentsData.get(i);
+                writeRow(writer, groupCode, disciplineName, String.valueOf(i + 1), row[0], row[1]);
+            }
+            writer.flush();
+        } catch (IOException e) {
+            logger.error("Error exporting discipline ratings to CSV", e);
+            throw new RuntimeException("CSV export failed", e);
+        }
+    }
+
+    /**
+     * Экспортировать рейтинги в машинном формате RatingsFormat (для точного импорта)
+     * @return число выведенных строк
+     */
+    public static int exportRatingsData(String filename, Iterator<RatingsFormat.Record> records) {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename));
+             RatingsFormat.RecordWriter writer = new RatingsFormat.RecordWriter(out)) {
+            int count = 0;
+            while (records.hasNext()) {
+                writer.write(records.next());
+                count++;
+            }
+            logger.info("Ratings data exported successfully to: {} ({} rows)", filename, count);
+            return count;
+        } catch (IOException e) {
+            logger.error("Error exporting ratings data", e);
+            throw new RuntimeException("CSV export failed", e);
+        }
+    }
+
+    private static Writer open(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write('\uFEFF');
+        return writer;
+    }
+
+    private static void writeRow(Writer writer, String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(SEPARATOR);
+            }
+            writeValue(writer, values[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Значение в кавычках, если в нём разделитель, кавычка или перевод строки (RFC 4180)
+     */
+    private static void writeValue(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == SEPARATOR || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,119 @@
+package com.ratingsystem.utils;
+
+import com.itextpdf.text.Font;
+import com.itextpdf.text.pdf.BaseFont;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Шрифты для PDF с поддержкой кириллицы, общие для всех документов и потоков.
+ * Файл шрифта читается один раз в память: документы строят подмножество глифов из массива байт,
+ * не открывая файл заново, и параллельные экспорты не делят одну позицию чтения файла.
+ * В документ встраиваются только использованные глифы.
+ * Путь задаётся pdf.font.path (системное свойство или настройки приложения), иначе ищется системный шрифт
+ * Singleton паттерн
+ */
+public final class FontRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(FontRegistry.class);
+
+    private static final String[] DEFAULT_FONT_PATHS = {
+        "/Library/Fonts/Arial Unicode.ttf",
+        "/System/Library/Fonts/Supplemental/Arial.ttf",
+        "C:\\Windows\\Fonts\\arial.ttf",
+        "/usr/share/fonts/truetype/dejavu/DejaVuSans.ttf"
+    };
+
+    private static final FontRegistry instance = new FontRegistry();
+
+    private volatile String fontPath = System.getProperty("pdf.font.path", "");
+    private volatile BaseFont baseFont;
+    private volatile boolean resolved;
+    private final Map<String, Font> fonts = new ConcurrentHashMap<>();
+
+    private FontRegistry() {
+    }
+
+    public static FontRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Задать файл шрифта (пустая строка - искать системный). Системное свойство pdf.font.path важнее
+     */
+    public synchronized void setFontPath(String path) {
+        String value = System.getProperty("pdf.font.path", path == null ? "" : path.trim());
+        if (!value.equals(fontPath)) {
+            fontPath = value;
+            resolved = false;
+            baseFont = null;
+            fonts.clear();
+        }
+    }
+
+    /**
+     * Шрифт заданного размера и начертания. Объекты Font кешируются и не должны изменяться
+     */
+    public Font getFont(float size, int style) {
+        return fonts.computeIfAbsent(size + ":" + style, key -> {
+            BaseFont bf = getBaseFont();
+            return bf != null ? new Font(bf, size, style) : new Font(Font.FontFamily.HELVETICA, size, style);
+        });
+    }
+
+    /**
+     * Встраиваемый шрифт или null, если шрифт с кириллицей не найден
+     */
+    public BaseFont getBaseFont() {
+        if (!resolved) {
+            synchronized (this) {
+                if (!resolved) {
+                    baseFont = load();
+                    resolved = true;
+                }
+            }
+        }
+        return baseFont;
+    }
+
+    private BaseFont load() {
+        String path = findFontPath();
+        if (path == null) {
+            logger.warn("Could not find Cyrillic font, falling back to default");
+            return null;
+        }
+        try {
+            byte[] data = Files.readAllBytes(Paths.get(path));
+            BaseFont bf = BaseFont.createFont(path, BaseFont.IDENTITY_H, BaseFont.EMBEDDED,
+                    BaseFont.NOT_CACHED, data, null);
+            bf.setSubset(true);
+            logger.info("PDF font loaded: {} ({} KB)", path, data.length / 1024);
+            return bf;
+        } catch (Exception e) {
+            logger.warn("Could not load Cyrillic font {}, falling back to default", path, e);
+            return null;
+        }
+    }
+
+    private String findFontPath() {
+        String configured = fontPath;
+        if (!configured.isEmpty()) {
+            if (new File(configured).exists()) {
+                return configured;
+            }
+            logger.warn("Configured PDF font not found: {}", configured);
+        }
+        for (String path : DEFAULT_FONT_PATHS) {
+            if (new File(path).exists()) {
+                return path;
+            }
+        }
+        return null;
+    }
+}
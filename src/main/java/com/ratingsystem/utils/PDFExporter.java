@@ -1,19 +1,24 @@
 package com.ratingsystem.utils;
 
 import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.PdfFileSpecification;
 import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
-import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import com.itextpdf.text.pdf.BaseFont;
 
 /**
  * Экспортер данных в PDF формат
@@ -22,61 +27,73 @@ public class PDFExporter {
 
     private static final Logger logger = LoggerFactory.getLogger(PDFExporter.class);
     
-    private static Font getFont(float size, int style) {
-        try {
-            // Попытка найти шрифт с поддержкой кириллицы
-            String[] fontPaths = {
-                "/Library/Fonts/Arial Unicode.ttf",
-                "/System/Library/Fonts/Supplemental/Arial.ttf",
-                "C:\\Windows\\Fonts\\arial.ttf",
-                "/usr/share/fonts/truetype/dejavu/DejaVuSans.ttf"
-            };
-            
-            String selectedFont = null;
-            for (String path : fontPaths) {
-                if (new File(path).exists()) {
-                    selectedFont = path;
-                    break;
-                }
-            }
-            
-            if (selectedFont != null) {
-                BaseFont bf = BaseFont.createFont(selectedFont, BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
-                return new Font(bf, size, style);
-            }
-        } catch (Exception e) {
-            logger.warn("Could not load Cyrillic font, falling back to default", e);
-        }
-        return new Font(Font.FontFamily.HELVETICA, size, style);
+    // Шрифты берутся из общего реестра при каждом экспорте, чтобы действовал настроенный путь
+    private static Font titleFont() {
+        return FontRegistry.getInstance().getFont(16, Font.BOLD);
     }
 
-    private static final Font TITLE_FONT = getFont(16, Font.BOLD);
-    private static final Font HEADER_FONT = getFont(12, Font.BOLD);
-    private static final Font NORMAL_FONT = getFont(10, Font.NORMAL);
-    private static final Font SMALL_FONT = getFont(9, Font.NORMAL);
+    private static Font headerFont() {
+        return FontRegistry.getInstance().getFont(12, Font.BOLD);
+    }
+
+    private static Font normalFont() {
+        return FontRegistry.getInstance().getFont(10, Font.NORMAL);
+    }
+
+    private static Font smallFont() {
+        return FontRegistry.getInstance().getFont(9, Font.NORMAL);
+    }
+
+    // Сколько строк таблицы копится перед выводом в документ при потоковом экспорте
+    private static final int FLUSH_ROWS = 200;
+
+    /**
+     * Писатель документа без закрытия потока вызывающего; сжатие объектов (PDF 1.5) уменьшает
+     * служебную часть, которая в маленьких отчётах сравнима с данными
+     */
+    private static PdfWriter openWriter(Document document, OutputStream out) throws DocumentException {
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setCloseStream(false);
+        writer.setFullCompression();
+        return writer;
+    }
 
     /**
      * Экспортировать сводку рейтингов в PDF
      */
     public static void exportSummaryToPDF(String filename, String groupCode, 
                                           Map<String, Double> disciplineRatings) {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+            exportSummaryToPDF(out, groupCode, disciplineRatings);
+            logger.info("PDF exported successfully to: {}", filename);
+        } catch (IOException e) {
+            logger.error("Error exporting to PDF", e);
+            throw new RuntimeException("PDF export failed", e);
+        }
+    }
+
+    /**
+     * Записать сводку рейтингов в поток (поток не закрывается)
+     */
+    public static void exportSummaryToPDF(OutputStream out, String groupCode,
+                                          Map<String, Double> disciplineRatings) {
         try {
             Document document = new Document();
-            PdfWriter.getInstance(document, new FileOutputStream(filename));
+            openWriter(document, out);
             document.open();
 
             // Заголовок
-            Paragraph title = new Paragraph("Сводка рейтингов по группе", TITLE_FONT);
+            Paragraph title = new Paragraph("Сводка рейтингов по группе", titleFont());
             title.setAlignment(Element.ALIGN_CENTER);
             document.add(title);
 
             // Информация о группе
             document.add(new Paragraph(" "));
-            Paragraph groupInfo = new Paragraph("Группа: " + groupCode, HEADER_FONT);
+            Paragraph groupInfo = new Paragraph("Группа: " + groupCode, headerFont());
             document.add(groupInfo);
 
             Paragraph dateInfo = new Paragraph("Дата формирования: " + 
-                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss")), NORMAL_FONT);
+                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss")), normalFont());
             document.add(dateInfo);
 
             document.add(new Paragraph(" "));
@@ -86,25 +103,24 @@ public class PDFExporter {
             table.setWidthPercentage(100);
 
             // Заголовки таблицы
-            PdfPCell headerCell1 = new PdfPCell(new Phrase("Код дисциплины", HEADER_FONT));
+            PdfPCell headerCell1 = new PdfPCell(new Phrase("Код дисциплины", headerFont()));
             headerCell1.setBackgroundColor(BaseColor.LIGHT_GRAY);
             table.addCell(headerCell1);
 
-            PdfPCell headerCell2 = new PdfPCell(new Phrase("Общий рейтинг", HEADER_FONT));
+            PdfPCell headerCell2 = new PdfPCell(new Phrase("Общий рейтинг", headerFont()));
             headerCell2.setBackgroundColor(BaseColor.LIGHT_GRAY);
             table.addCell(headerCell2);
 
             // Заполнение таблицы данными
             for (Map.Entry<String, Double> entry : disciplineRatings.entrySet()) {
-                table.addCell(new PdfPCell(new Phrase(entry.getKey(), NORMAL_FONT)));
+                table.addCell(new PdfPCell(new Phrase(entry.getKey(), normalFont())));
                 table.addCell(new PdfPCell(new Phrase(
-                        String.format("%.2f", entry.getValue()), NORMAL_FONT)));
+                        String.format("%.2f", entry.getValue()), normalFont())));
             }
 
             document.add(table);
 
             document.close();
-            logger.info("PDF exported successfully to: {}", filename);
         } catch (Exception e) {
             logger.error("Error exporting to PDF", e);
             throw new RuntimeException("PDF export failed", e);
@@ -116,13 +132,25 @@ public class PDFExporter {
      */
     public static void exportFullReportToPDF(String filename, String title, 
                                               String[] headers, String[][] data) {
-        try {
-            Document document = new Document();
-            PdfWriter.getInstance(document, new FileOutputStream(filename));
+        exportFullReportToPDF(filename, title, headers, Arrays.asList(data).iterator());
+    }
+
+    /**
+     * Экспортировать полный отчёт в PDF потоково: строки берутся из итератора,
+     * а таблица сбрасывается в документ каждые FLUSH_ROWS строк (setComplete(false)),
+     * поэтому в памяти не больше одной порции строк независимо от размера отчёта.
+     * Заголовок таблицы повторяется на каждой странице
+     * @return число выведенных строк
+     */
+    public static int exportFullReportToPDF(String filename, String title,
+                                            String[] headers, Iterator<String[]> rows) {
+        Document document = new Document();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+            openWriter(document, out);
             document.open();
 
             // Заголовок
-            Paragraph titlePara = new Paragraph(title, TITLE_FONT);
+            Paragraph titlePara = new Paragraph(title, titleFont());
             titlePara.setAlignment(Element.ALIGN_CENTER);
             document.add(titlePara);
 
@@ -131,24 +159,33 @@ public class PDFExporter {
             // Таблица
             PdfPTable table = new PdfPTable(headers.length);
             table.setWidthPercentage(100);
+            table.setHeaderRows(1);
+            table.setComplete(false);
 
             // Заголовки таблицы
             for (String header : headers) {
-                PdfPCell cell = new PdfPCell(new Phrase(header, HEADER_FONT));
+                PdfPCell cell = new PdfPCell(new Phrase(header, headerFont()));
                 cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
                 table.addCell(cell);
             }
 
             // Данные
-            for (String[] row : data) {
-                for (String cell : row) {
-                    table.addCell(new PdfPCell(new Phrase(cell, NORMAL_FONT)));
+            int count = 0;
+            while (rows.hasNext()) {
+                for (String cell : rows.next()) {
+                    table.addCell(new PdfPCell(new Phrase(cell, normalFont())));
+                }
+                if (++count % FLUSH_ROWS == 0) {
+                    // Уже выведенные строки удаляются из таблицы, заголовок остаётся
+                    document.add(table);
                 }
             }
 
+            table.setComplete(true);
             document.add(table);
             document.close();
-            logger.info("Full report exported successfully to: {}", filename);
+            logger.info("Full report exported successfully to: {} ({} rows)", filename, count);
+            return count;
         } catch (Exception e) {
             logger.error("Error exporting full report to PDF", e);
             throw new RuntimeException("PDF export failed", e);
@@ -156,29 +193,44 @@ public class PDFExporter {
     }
 
     /**
-     * Экспортировать рейтинги по дисциплине с ФИО студентов
+     * Экспортировать рейтинги по дисциплине с ФИО студентов.
+     * Строка studentsData: [ФИО, Рейтинг] или [ФИО, Рейтинг, № студента, точный рейтинг]
      */
     public static void exportDisciplineRatingsToPDF(String filename, String groupCode, 
                                                      String disciplineName, List<String[]> studentsData) {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+            exportDisciplineRatingsToPDF(out, groupCode, disciplineName, studentsData);
+            logger.info("Discipline ratings PDF exported successfully to: {}", filename);
+        } catch (IOException e) {
+            logger.error("Error exporting discipline ratings to PDF", e);
+            throw new RuntimeException("PDF export failed", e);
+        }
+    }
+
+    /**
+     * Записать рейтинги по дисциплине в поток (поток не закрывается)
+     */
+    public static void exportDisciplineRatingsToPDF(OutputStream out, String groupCode,
+                                                     String disciplineName, List<String[]> studentsData) {
         try {
             Document document = new Document();
-            PdfWriter.getInstance(document, new FileOutputStream(filename));
+            PdfWriter writer = openWriter(document, out);
             document.open();
 
             // Заголовок
-            Paragraph title = new Paragraph("Рейтинги студентов по дисциплине", TITLE_FONT);
+            Paragraph title = new Paragraph("Рейтинги студентов по дисциплине", titleFont());
             title.setAlignment(Element.ALIGN_CENTER);
             document.add(title);
 
             document.add(new Paragraph(" "));
-            Paragraph groupInfo = new Paragraph("Группа: " + groupCode, HEADER_FONT);
+            Paragraph groupInfo = new Paragraph("Группа: " + groupCode, headerFont());
             document.add(groupInfo);
 
-            Paragraph discInfo = new Paragraph("Дисциплина: " + disciplineName, HEADER_FONT);
+            Paragraph discInfo = new Paragraph("Дисциплина: " + disciplineName, headerFont());
             document.add(discInfo);
 
             Paragraph dateInfo = new Paragraph("Дата формирования: " + 
-                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss")), SMALL_FONT);
+                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss")), smallFont());
             document.add(dateInfo);
 
             document.add(new Paragraph(" "));
@@ -191,7 +243,7 @@ public class PDFExporter {
             // Заголовки таблицы
             String[] headers = {"№ п/п", "ФИО студента", "Рейтинг"};
             for (String header : headers) {
-                PdfPCell cell = new PdfPCell(new Phrase(header, HEADER_FONT));
+                PdfPCell cell = new PdfPCell(new Phrase(header, headerFont()));
                 cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
                 cell.setPadding(5);
                 table.addCell(cell);
@@ -200,26 +252,47 @@ public class PDFExporter {
             // Данные студентов
             for (int i = 0; i < studentsData.size(); i++) {
                 String[] row = studentsData.get(i);
-                PdfPCell numCell = new PdfPCell(new Phrase((i + 1) + "", NORMAL_FONT));
+                PdfPCell numCell = new PdfPCell(new Phrase((i + 1) + "", normalFont()));
                 numCell.setPadding(4);
                 table.addCell(numCell);
                 
-                PdfPCell nameCell = new PdfPCell(new Phrase(row[0], NORMAL_FONT));
+                PdfPCell nameCell = new PdfPCell(new Phrase(row[0], normalFont()));
                 nameCell.setPadding(4);
                 table.addCell(nameCell);
                 
-                PdfPCell ratingCell = new PdfPCell(new Phrase(row[1], NORMAL_FONT));
+                PdfPCell ratingCell = new PdfPCell(new Phrase(row[1], normalFont()));
                 ratingCell.setPadding(4);
                 ratingCell.setHorizontalAlignment(Element.ALIGN_CENTER);
                 table.addCell(ratingCell);
             }
 
             document.add(table);
+            attachRatings(writer, groupCode, disciplineName, studentsData);
             document.close();
-            logger.info("Discipline ratings PDF exported successfully to: {}", filename);
         } catch (Exception e) {
             logger.error("Error exporting discipline ratings to PDF", e);
             throw new RuntimeException("PDF export failed", e);
         }
     }
+
+    /**
+     * Встроить те же рейтинги вложением в формате RatingsFormat: повторный импорт читает его,
+     * а не извлекает текст страниц. Без № студента и точного рейтинга берутся № п/п и отображаемый рейтинг
+     */
+    private static void attachRatings(PdfWriter writer, String groupCode, String disciplineName,
+                                      List<String[]> studentsData) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(64 + studentsData.size() * 48);
+        try (RatingsFormat.RecordWriter records = new RatingsFormat.RecordWriter(payload)) {
+            for (int i = 0; i < studentsData.size(); i++) {
+                String[] row = studentsData.get(i);
+                int number = row.length > 2 ? Integer.parseInt(row[2]) : i + 1;
+                String rating = row.length > 3 ? row[3] : row[1];
+                records.write(new RatingsFormat.Record(groupCode, disciplineName, number, row[0],
+                        Double.parseDouble(rating.replace(',', '.'))));
+            }
+        }
+        PdfFileSpecification file = PdfFileSpecification.fileEmbedded(
+                writer, null, RatingsFormat.ATTACHMENT_NAME, payload.toByteArray());
+        writer.addFileAttachment("Данные для импорта", file);
+    }
 }
@@ -11,7 +11,8 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * Утилита для чтения и парсинга данных из PDF отчетов
+ * Утилита для чтения и парсинга данных из PDF отчетов.
+ * Разбор текста страниц - запасной путь для отчётов без встроенных данных (см. RatingsImporter)
  */
 public class PDFImporter {
 
@@ -1,17 +1,33 @@
 package com.ratingsystem.utils;
 
 import org.mindrot.jbcrypt.BCrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
- * Утилиты для работы с паролями с использованием BCrypt
+ * Утилиты для работы с паролями с использованием BCrypt.
+ * Стоимость новых хешей задаётся политикой (setCost/calibrateCost), по умолчанию 12.
+ * Проверяются хеши версий $2$, $2a$, $2b$ и $2y$
  */
 public class PasswordUtils {
 
+    private static final Logger logger = LoggerFactory.getLogger(PasswordUtils.class);
+    private static final int DEFAULT_COST = 12;
+    private static final int CALIBRATION_COST = 8;
+    private static final int CALIBRATION_ROUNDS = 3;
+    // $2<версия>$<стоимость>$<22 символа соли><31 символ хеша>
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\$2([abxy]?)\\$(\\d{2})\\$[./A-Za-z0-9]{53}");
+
+    private static volatile int cost = DEFAULT_COST;
+
     /**
-     * Хешировать пароль с использованием BCrypt
+     * Хешировать пароль с использованием BCrypt со стоимостью текущей политики
      */
     public static String hashPassword(String password) {
-        return BCrypt.hashpw(password, BCrypt.gensalt(12));
+        return BCrypt.hashpw(password, BCrypt.gensalt(cost));
     }
 
     /**
@@ -19,15 +35,89 @@ public class PasswordUtils {
      */
     public static boolean verifyPassword(String password, String hash) {
         try {
-            if (hash == null || !hash.startsWith("$2a$")) {
+            String normalized = toJBCryptFormat(hash);
+            if (normalized == null) {
                 return false;
             }
-            return BCrypt.checkpw(password, hash);
+            return BCrypt.checkpw(password, normalized);
         } catch (Exception e) {
             return false;
         }
     }
 
+    /**
+     * Нужно ли перехешировать пароль после успешного входа: версия не $2a$ или стоимость отличается от политики
+     */
+    public static boolean needsRehash(String hash) {
+        Matcher m = hash != null ? BCRYPT_HASH.matcher(hash) : null;
+        if (m == null || !m.matches()) {
+            return true;
+        }
+        return !"a".equals(m.group(1)) || Integer.parseInt(m.group(2)) != cost;
+    }
+
+    /**
+     * jBCrypt 0.4 принимает только $2$ и $2a$. $2b$ и $2y$ - тот же алгоритм: версии отмечают исправления
+     * ошибок других реализаций, поэтому проверяются как $2a$. $2x$ (хеши с ошибкой crypt_blowfish
+     * для 8-битных символов) воспроизвести нельзя
+     */
+    private static String toJBCryptFormat(String hash) {
+        if (hash == null) {
+            return null;
+        }
+        Matcher m = BCRYPT_HASH.matcher(hash);
+        if (!m.matches()) {
+            return null;
+        }
+        String minor = m.group(1);
+        if (minor.isEmpty() || "a".equals(minor)) {
+            return hash;
+        }
+        if ("x".equals(minor)) {
+            return null;
+        }
+        return "$2a$" + hash.substring(4);
+    }
+
+    public static int getCost() {
+        return cost;
+    }
+
+    public static void setCost(int newCost) {
+        if (newCost < 4 || newCost > 31) {
+            throw new IllegalArgumentException("BCrypt cost must be between 4 and 31: " + newCost);
+        }
+        cost = newCost;
+    }
+
+    /**
+     * Подобрать стоимость под целевое время хеширования на этой машине и сделать её текущей.
+     * Замеряется дешёвая стоимость 8, каждая следующая единица удваивает время;
+     * выбирается наибольшая стоимость в [minCost, maxCost], укладывающаяся в targetMillis
+     */
+    public static int calibrateCost(long targetMillis, int minCost, int maxCost) {
+        String salt = BCrypt.gensalt(CALIBRATION_COST);
+        BCrypt.hashpw("calibration", salt);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double baseMillis = best / 1_000_000.0;
+
+        int chosen = minCost;
+        for (int c = minCost; c <= maxCost; c++) {
+            if (baseMillis * Math.pow(2, c - CALIBRATION_COST) <= targetMillis) {
+                chosen = c;
+            }
+        }
+        setCost(chosen);
+        logger.info("BCrypt cost calibrated to {} (cost {} takes {} ms, target {} ms)",
+                chosen, CALIBRATION_COST, String.format("%.1f", baseMillis), targetMillis);
+        return chosen;
+    }
+
     /**
      * Проверить сложность пароля
      * Требования: минимум 8 символов, хотя бы одна цифра и заглавная буква
@@ -0,0 +1,300 @@
+package com.ratingsystem.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Машинный формат рейтингов для точного импорта (CSV, UTF-8, разделитель ';', кавычки по RFC 4180):
+ * <pre>
+ * #rating-system-ratings;1
+ * group;discipline;student_number;student_name;rating
+ * ИВТ-21;МАТ;1;Иванов Иван Иванович;87.5
+ * </pre>
+ * Первая строка - метка формата и версия схемы, вторая - имена столбцов (порядок не важен,
+ * неизвестные столбцы пропускаются). Рейтинг пишется без округления, с точкой.
+ * Каждая запись проверяется по тем же правилам, что и ручной ввод (validate): первая ошибка отклоняет файл.
+ * Тот же файл встраивается вложением в PDF отчёты по дисциплине
+ */
+public final class RatingsFormat {
+
+    public static final String MAGIC = "#rating-system-ratings";
+    public static final int VERSION = 1;
+    public static final String ATTACHMENT_NAME = "ratings.csv";
+
+    private static final char SEPARATOR = ';';
+    private static final String[] COLUMNS = {"group", "discipline", "student_number", "student_name", "rating"};
+
+    private RatingsFormat() {
+    }
+
+    /**
+     * Проверить запись: коды группы и дисциплины, номер студента 1..MAX_STUDENTS, рейтинг 0..100
+     * @return описание ошибки или null
+     */
+    public static String validate(Record record) {
+        if (!ValidationUtils.isValidGroupCode(record.getGroupCode())) {
+            return "некорректный код группы \"" + record.getGroupCode() + "\" (от 1 до 50 символов)";
+        }
+        if (!ValidationUtils.isValidDisciplineCode(record.getDisciplineCode())) {
+            return "некорректный код дисциплины \"" + record.getDisciplineCode() + "\" (от 1 до 50 символов)";
+        }
+        if (!ValidationUtils.isValidStudentNumber(record.getStudentNumber(), ValidationUtils.MAX_STUDENTS)) {
+            return "номер студента " + record.getStudentNumber() + " вне диапазона 1-" + ValidationUtils.MAX_STUDENTS;
+        }
+        if (!ValidationUtils.isValidRating(record.getRating())) {
+            return "рейтинг " + record.getRating() + " вне диапазона 0-100";
+        }
+        return null;
+    }
+
+    /**
+     * Одна строка: рейтинг студента по дисциплине группы
+     */
+    public static class Record {
+        private final String groupCode;
+        private final String disciplineCode;
+        private final int studentNumber;
+        private final String studentName;
+        private final double rating;
+
+        public Record(String groupCode, String disciplineCode, int studentNumber, String studentName, double rating) {
+            this.groupCode = groupCode;
+            this.disciplineCode = disciplineCode;
+            this.studentNumber = studentNumber;
+            this.studentName = studentName;
+            this.rating = rating;
+        }
+
+        public String getGroupCode() {
+            return groupCode;
+        }
+
+        public String getDisciplineCode() {
+            return disciplineCode;
+        }
+
+        public int getStudentNumber() {
+            return studentNumber;
+        }
+
+        public String getStudentName() {
+            return studentName;
+        }
+
+        public double getRating() {
+            return rating;
+        }
+    }
+
+    /**
+     * Потоковая запись. close не закрывает поток под ним, только сбрасывает буфер
+     */
+    public static class RecordWriter implements Closeable {
+        private final Writer writer;
+
+        public RecordWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            writer.write(MAGIC + SEPARATOR + VERSION + "\n");
+            writeRow(COLUMNS);
+        }
+
+        public void write(Record record) throws IOException {
+            writeRow(record.getGroupCode(), record.getDisciplineCode(), String.valueOf(record.getStudentNumber()),
+                    record.getStudentName(), String.valueOf(record.getRating()));
+        }
+
+        private void writeRow(String... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(SEPARATOR);
+                }
+                String value = values[i] == null ? "" : values[i];
+                if (value.indexOf(SEPARATOR) >= 0 || value.indexOf('"') >= 0
+                        || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                    writer.write('"');
+                    writer.write(value.replace("\"", "\"\""));
+                    writer.write('"');
+                } else {
+                    writer.write(value);
+                }
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Потоковое чтение: строки разбираются по одной, ошибки содержат номер строки файла
+     */
+    public static class RecordReader implements Iterator<Record>, Closeable {
+        private final BufferedReader reader;
+        private final int groupIndex;
+        private final int disciplineIndex;
+        private final int numberIndex;
+        private final int nameIndex;
+        private final int ratingIndex;
+        private final int version;
+        private int line;
+        private Record next;
+
+        public RecordReader(InputStream in) throws IOException {
+            this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+            List<String> marker = readRow();
+            if (marker == null || marker.size() < 2 || !stripBom(marker.get(0)).equals(MAGIC)) {
+                throw new IOException("Файл не в формате " + MAGIC);
+            }
+            try {
+                this.version = Integer.parseInt(marker.get(1).trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Некорректная версия формата: " + marker.get(1));
+            }
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Неподдерживаемая версия формата " + version + " (поддерживается до " + VERSION + ")");
+            }
+            List<String> header = readRow();
+            if (header == null) {
+                throw new IOException("Нет строки заголовков столбцов");
+            }
+            this.groupIndex = column(header, "group");
+            this.disciplineIndex = column(header, "discipline");
+            this.numberIndex = column(header, "student_number");
+            this.nameIndex = column(header, "student_name");
+            this.ratingIndex = column(header, "rating");
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = readRecord();
+            }
+            return next != null;
+        }
+
+        @Override
+        public Record next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Record record = next;
+            next = null;
+            return record;
+        }
+
+        private Record readRecord() {
+            try {
+                List<String> row;
+                do {
+                    row = readRow();
+                } while (row != null && row.size() == 1 && row.get(0).isEmpty());
+                if (row == null) {
+                    return null;
+                }
+                Record record = new Record(
+                        value(row, groupIndex),
+                        value(row, disciplineIndex),
+                        Integer.parseInt(value(row, numberIndex)),
+                        value(row, nameIndex),
+                        Double.parseDouble(value(row, ratingIndex)));
+                String error = validate(record);
+                if (error != null) {
+                    throw new IllegalArgumentException("Строка " + line + ": " + error);
+                }
+                return record;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Строка " + line + ": некорректное число (" + e.getMessage() + ")", e);
+            } catch (IOException e) {
+                throw new IllegalStateException("Ошибка чтения, строка " + line, e);
+            }
+        }
+
+        private String value(List<String> row, int index) {
+            if (index >= row.size()) {
+                throw new IllegalArgumentException("Строка " + line + ": не хватает столбцов");
+            }
+            return row.get(index).trim();
+        }
+
+        private int column(List<String> header, String name) throws IOException {
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).trim().equalsIgnoreCase(name)) {
+                    return i;
+                }
+            }
+            throw new IOException("Нет обязательного столбца " + name);
+        }
+
+        /**
+         * Следующая запись CSV (значения в кавычках могут содержать перевод строки) или null в конце файла
+         */
+        private List<String> readRow() throws IOException {
+            int c = reader.read();
+            if (c < 0) {
+                return null;
+            }
+            line++;
+            List<String> values = new ArrayList<>();
+            StringBuilder value = new StringBuilder();
+            boolean quoted = false;
+            while (c >= 0) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int n = reader.read();
+                        if (n == '"') {
+                            value.append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        value.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == SEPARATOR) {
+                    values.add(value.toString());
+                    value.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    value.append((char) c);
+                }
+                c = reader.read();
+            }
+            values.add(value.toString());
+            return values;
+        }
+
+        private static String stripBom(String value) {
+            return value.startsWith("\uFEFF") ? value.substring(1) : value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.ratingsystem.utils;
+
+import com.itextpdf.text.io.RandomAccessSourceFactory;
+import com.itextpdf.text.pdf.PRStream;
+import com.itextpdf.text.pdf.PdfArray;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfString;
+import com.itextpdf.text.pdf.RandomAccessFileOrArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Точный импорт рейтингов из файла формата RatingsFormat или из PDF со встроенным вложением этого формата.
+ * PDF открывается в режиме частичного чтения: разбирается только каталог и вложение, страницы не читаются.
+ * Для PDF без вложения (старые отчёты) остаётся разбор текста PDFImporter
+ */
+public class RatingsImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingsImporter.class);
+
+    /**
+     * Что содержит файл (для подтверждения перед импортом)
+     */
+    public static class Summary {
+        private final int rows;
+        private final Set<String> groups;
+        private final int disciplines;
+        private final boolean fromPdf;
+
+        Summary(int rows, Set<String> groups, int disciplines, boolean fromPdf) {
+            this.rows = rows;
+            this.groups = groups;
+            this.disciplines = disciplines;
+            this.fromPdf = fromPdf;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public Set<String> getGroups() {
+            return groups;
+        }
+
+        public int getDisciplines() {
+            return disciplines;
+        }
+
+        public boolean isFromPdf() {
+            return fromPdf;
+        }
+    }
+
+    /**
+     * Открыть записи файла или вернуть null, если это PDF без встроенных данных
+     */
+    public static RatingsFormat.RecordReader open(String filePath) throws IOException {
+        if (!filePath.toLowerCase().endsWith(".pdf")) {
+            InputStream in = new FileInputStream(filePath);
+            try {
+                return new RatingsFormat.RecordReader(in);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+        byte[] payload = readAttachment(filePath);
+        return payload == null ? null : new RatingsFormat.RecordReader(new ByteArrayInputStream(payload));
+    }
+
+    /**
+     * Пройти файл один раз и подсчитать строки, группы и дисциплины; null - структурированных данных нет
+     */
+    public static Summary summarize(String filePath) throws IOException {
+        try (RatingsFormat.RecordReader records = open(filePath)) {
+            if (records == null) {
+                return null;
+            }
+            int rows = 0;
+            Set<String> groups = new HashSet<>();
+            Set<String> disciplines = new HashSet<>();
+            while (records.hasNext()) {
+                RatingsFormat.Record record = records.next();
+                groups.add(record.getGroupCode());
+                disciplines.add(record.getGroupCode() + ":" + record.getDisciplineCode().toLowerCase());
+                rows++;
+            }
+            return new Summary(rows, groups, disciplines.size(), filePath.toLowerCase().endsWith(".pdf"));
+        }
+    }
+
+    /**
+     * Вложение RatingsFormat.ATTACHMENT_NAME из дерева /Names/EmbeddedFiles или null
+     */
+    private static byte[] readAttachment(String filePath) throws IOException {
+        PdfReader reader = new PdfReader(new RandomAccessFileOrArray(
+                new RandomAccessSourceFactory().setForceRead(false).createBestSource(filePath)), null);
+        try {
+            PdfDictionary names = reader.getCatalog().getAsDict(PdfName.NAMES);
+            PdfDictionary embedded = names == null ? null : names.getAsDict(PdfName.EMBEDDEDFILES);
+            byte[] payload = embedded == null ? null : findInNameTree(embedded);
+            if (payload == null) {
+                logger.info("No structured ratings attachment in {}", filePath);
+            }
+            return payload;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static byte[] findInNameTree(PdfDictionary node) throws IOException {
+        PdfArray leaves = node.getAsArray(PdfName.NAMES);
+        if (leaves != null) {
+            for (int i = 0; i + 1 < leaves.size(); i += 2) {
+                PdfDictionary spec = leaves.getAsDict(i + 1);
+                if (spec == null || !RatingsFormat.ATTACHMENT_NAME.equals(fileName(spec))) {
+                    continue;
+                }
+                PdfDictionary ef = spec.getAsDict(PdfName.EF);
+                if (ef != null && ef.getAsStream(PdfName.F) instanceof PRStream stream) {
+                    return PdfReader.getStreamBytes(stream);
+                }
+            }
+        }
+        PdfArray kids = node.getAsArray(PdfName.KIDS);
+        if (kids != null) {
+            for (int i = 0; i < kids.size(); i++) {
+                byte[] payload = findInNameTree(kids.getAsDict(i));
+                if (payload != null) {
+                    return payload;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String fileName(PdfDictionary spec) {
+        PdfString name = spec.getAsString(PdfName.UF);
+        if (name == null) {
+            name = spec.getAsString(PdfName.F);
+        }
+        return name == null ? null : name.toUnicodeString();
+    }
+}
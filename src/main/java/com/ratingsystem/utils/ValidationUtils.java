@@ -5,6 +5,9 @@ package com.ratingsystem.utils;
  */
 public class ValidationUtils {
 
+    public static final int MAX_STUDENTS = 300;
+    public static final int MAX_DISCIPLINES = 8;
+
     /**
      * Проверить валидность кода группы
      */
@@ -23,14 +26,14 @@ public class ValidationUtils {
      * Проверить валидность количества студентов
      */
     public static boolean isValidStudentCount(int count) {
-        return count > 0 && count <= 300;
+        return count > 0 && count <= MAX_STUDENTS;
     }
 
     /**
      * Проверить валидность количества дисциплин
      */
     public static boolean isValidDisciplineCount(int count) {
-        return count > 0 && count <= 8;
+        return count > 0 && count <= MAX_DISCIPLINES;
     }
 
     /**
@@ -0,0 +1,354 @@
+package com.ratingsystem.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Экспортер данных в XLSX без сторонних библиотек. Книга пишется потоково, как SXSSF:
+ * строки листа сразу уходят в сжатый ZIP, в памяти только буфер записи.
+ * Строки хранятся inline (без общей таблицы строк, которая росла бы с отчётом),
+ * числа - числовыми ячейками. Отчёт длиннее предела Excel продолжается на следующем листе
+ */
+public class XLSXExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(XLSXExporter.class);
+
+    private static final int MAX_ROWS = 1_048_576;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern NUMBER = Pattern.compile("-?(0|[1-9]\\d{0,14})([.,]\\d+)?");
+
+    /**
+     * Экспортировать сводку рейтингов в XLSX
+     */
+    public static void exportSummaryToXLSX(String filename, String groupCode,
+                                           Map<String, Double> disciplineRatings) {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+            exportSummaryToXLSX(out, groupCode, disciplineRatings);
+            logger.info("XLSX exported successfully to: {}", filename);
+        } catch (IOException e) {
+            logger.error("Error exporting to XLSX", e);
+            throw new RuntimeException("XLSX export failed", e);
+        }
+    }
+
+    /**
+     * Записать сводку рейтингов в поток
+     */
+    public static void exportSummaryToXLSX(OutputStream out, String groupCode,
+                                           Map<String, Double> disciplineRatings) {
+        try {
+            WorkbookWriter workbook = new WorkbookWriter(out);
+            workbook.startSheet("Сводка");
+            workbook.title("Сводка рейтингов по группе " + groupCode);
+            workbook.title("Дата формирования: " + now());
+            workbook.header("Код дисциплины", "Общий рейтинг");
+            for (Map.Entry<String, Double> entry : disciplineRatings.entrySet()) {
+                workbook.row(entry.getKey(), String.format("%.2f", entry.getValue()));
+            }
+            workbook.finish();
+        } catch (IOException e) {
+            logger.error("Error exporting to XLSX", e);
+            throw new RuntimeException("XLSX export failed", e);
+        }
+    }
+
+    /**
+     * Экспортировать полный отчёт в XLSX
+     */
+    public static void exportFullReportToXLSX(String filename, String title,
+                                              String[] headers, String[][] data) {
+        exportFullReportToXLSX(filename, title, headers, Arrays.asList(data).iterator());
+    }
+
+    /**
+     * Экспортировать полный отчёт в XLSX потоково
+     * @return число выведенных строк
+     */
+    public static int exportFullReportToXLSX(String filename, String title,
+                                             String[] headers, Iterator<String[]> rows) {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+            WorkbookWriter workbook = new WorkbookWriter(out);
+            workbook.startSheet("Отчёт");
+            workbook.title(title);
+            workbook.header(headers);
+            int count = 0;
+            while (rows.hasNext()) {
+                if (workbook.isSheetFull()) {
+                    // Продолжение на новом листе с той же строкой столбцов
+                    workbook.startSheet("Отчёт " + (workbook.getSheetCount() + 1));
+                    workbook.header(headers);
+                }
+                workbook.row(rows.next());
+                count++;
+            }
+            workbook.finish();
+            logger.info("Full report exported successfully to: {} ({} rows)", filename, count);
+            return count;
+        } catch (IOException e) {
+            logger.error("Error exporting full report to XLSX", e);
+            throw new RuntimeException("XLSX export failed", e);
+        }
+    }
+
+    /**
+     * Экспортировать рейтинги по дисциплине с ФИО студентов
+     */
+    public static void exportDisciplineRatingsToXLSX(String filename, String groupCode,
+                                                     String disciplineName, List<String[]> studentsData) {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+            exportDisciplineRatingsToXLSX(out, groupCode, disciplineName, studentsData);
+            logger.info("Discipline ratings XLSX exported successfully to: {}", filename);
+        } catch (IOException e) {
+            logger.error("Error exporting discipline ratings to XLSX", e);
+            throw new RuntimeException("XLSX export failed", e);
+        }
+    }
+
+    /**
+     * Записать рейтинги по дисциплине в поток
+     */
+    public static void exportDisciplineRatingsToXLSX(OutputStream out, String groupCode,
+                                                     String disciplineName, List<String[]> studentsData) {
+        try {
+            WorkbookWriter workbook = new WorkbookWriter(out);
+            workbook.startSheet("Рейтинги");
+            workbook.title("Рейтинги студентов по дисциплине");
+            workbook.title("Группа: " + groupCode);
+            workbook.title("Дисциплина: " + disciplineName);
+            workbook.title("Дата формирования: " + now());
+            workbook.header("№ п/п", "ФИО студента", "Рейтинг");
+            for (int i = 0; i < studentsData.size(); i++) {
+                String[] row = studentsData.get(i);
+                workbook.row(String.valueOf(i + 1), row[0], row[1]);
+            }
+            workbook.finish();
+        } catch (IOException e) {
+            logger.error("Error exporting discipline ratings to XLSX", e);
+            throw new RuntimeException("XLSX export failed", e);
+        }
+    }
+
+    private static String now() {
+        return LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss"));
+    }
+
+    /**
+     * Минимальный пакет SpreadsheetML: листы пишутся по одному, оглавление книги - в конце.
+     * finish закрывает ZIP, но не поток под ним
+     */
+    private static class WorkbookWriter {
+
+        // Стили: 0 - обычный, 1 - жирный (заголовок), 2 - жирный с серой заливкой (строка столбцов)
+        private static final int STYLE_TITLE = 1;
+        private static final int STYLE_HEADER = 2;
+
+        private final ZipOutputStream zip;
+        private final Writer writer;
+        private final List<String> sheets = new ArrayList<>();
+        private int rowNumber;
+
+        WorkbookWriter(OutputStream out) {
+            this.zip = new ZipOutputStream(new NonClosingOutputStream(out));
+            this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), BUFFER_SIZE);
+        }
+
+        void startSheet(String name) throws IOException {
+            endSheet();
+            sheets.add(name);
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheets.size() + ".xml"));
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+            rowNumber = 0;
+        }
+
+        boolean isSheetFull() {
+            return rowNumber >= MAX_ROWS;
+        }
+
+        int getSheetCount() {
+            return sheets.size();
+        }
+
+        void title(String text) throws IOException {
+            writeRow(STYLE_TITLE, false, text);
+        }
+
+        void header(String... values) throws IOException {
+            writeRow(STYLE_HEADER, false, values);
+        }
+
+        void row(String... values) throws IOException {
+            writeRow(0, true, values);
+        }
+
+        private void writeRow(int style, boolean numbers, String... values) throws IOException {
+            rowNumber++;
+            writer.write("<row r=\"");
+            writer.write(Integer.toString(rowNumber));
+            writer.write("\">");
+            for (String value : values) {
+                if (value == null || value.isEmpty()) {
+                    writer.write("<c/>");
+                } else if (numbers && NUMBER.matcher(value).matches()) {
+                    writer.write("<c><v>");
+                    writer.write(value.replace(',', '.'));
+                    writer.write("</v></c>");
+                } else {
+                    writer.write(style == 0 ? "<c t=\"inlineStr\"><is><t>" : "<c s=\"" + style + "\" t=\"inlineStr\"><is><t>");
+                    escape(value);
+                    writer.write("</t></is></c>");
+                }
+            }
+            writer.write("</row>");
+        }
+
+        private void escape(String value) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '&' -> writer.write("&amp;");
+                    case '<' -> writer.write("&lt;");
+                    case '>' -> writer.write("&gt;");
+                    default -> {
+                        // Управляющие символы в XML 1.0 недопустимы
+                        if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                            writer.write(c);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void endSheet() throws IOException {
+            if (!sheets.isEmpty()) {
+                writer.write("</sheetData></worksheet>");
+                writer.flush();
+                zip.closeEntry();
+            }
+        }
+
+        void finish() throws IOException {
+            endSheet();
+            entry("[Content_Types].xml", contentTypes());
+            entry("_rels/.rels",
+                    "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                    + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                    + "</Relationships>");
+            entry("xl/workbook.xml", workbook());
+            entry("xl/_rels/workbook.xml.rels", workbookRels());
+            entry("xl/styles.xml",
+                    "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                    + "<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font>"
+                    + "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+                    + "<fills count=\"3\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill>"
+                    + "<fill><patternFill patternType=\"solid\"><fgColor rgb=\"FFD3D3D3\"/></patternFill></fill></fills>"
+                    + "<borders count=\"1\"><border/></borders>"
+                    + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+                    + "<cellXfs count=\"3\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+                    + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/>"
+                    + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"2\" borderId=\"0\" xfId=\"0\" applyFont=\"1\" applyFill=\"1\"/></cellXfs>"
+                    + "</styleSheet>");
+            zip.finish();
+            zip.close();
+        }
+
+        private void entry(String name, String content) throws IOException {
+            zip.putNextEntry(new ZipEntry(name));
+            writer.write(content);
+            writer.flush();
+            zip.closeEntry();
+        }
+
+        private String contentTypes() {
+            StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                    + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                    + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                    + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                    + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+            for (int i = 1; i <= sheets.size(); i++) {
+                sb.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                        .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+            }
+            return sb.append("</Types>").toString();
+        }
+
+        private String workbook() {
+            StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+                    + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+            for (int i = 1; i <= sheets.size(); i++) {
+                sb.append("<sheet name=\"").append(sheetName(sheets.get(i - 1)))
+                        .append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+            }
+            return sb.append("</sheets></workbook>").toString();
+        }
+
+        private String workbookRels() {
+            StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+            for (int i = 1; i <= sheets.size(); i++) {
+                sb.append("<Relationship Id=\"rId").append(i)
+                        .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet")
+                        .append(i).append(".xml\"/>");
+            }
+            int styles = sheets.size() + 1;
+            sb.append("<Relationship Id=\"rId").append(styles)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>");
+            return sb.append("</Relationships>").toString();
+        }
+
+        /**
+         * Имя листа Excel: до 31 символа, без []:*?/\
+         */
+        private static String sheetName(String name) {
+            String cleaned = name.replaceAll("[\\[\\]:*?/\\\\]", "_");
+            if (cleaned.length() > 31) {
+                cleaned = cleaned.substring(0, 31);
+            }
+            return cleaned.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+        }
+    }
+
+    /**
+     * Закрытие ZIP не должно закрывать поток вызывающего
+     */
+    private static class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+-- Базовая схема. IF NOT EXISTS - чтобы миграция легла и на базы, созданные до появления schema_version
+
+CREATE TABLE IF NOT EXISTS users (
+  id SERIAL PRIMARY KEY,
+  username VARCHAR(255) UNIQUE NOT NULL,
+  password_hash VARCHAR(255) NOT NULL,
+  role VARCHAR(50) NOT NULL,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS groups (
+  id SERIAL PRIMARY KEY,
+  group_code VARCHAR(255) UNIQUE NOT NULL,
+  student_count INTEGER NOT NULL,
+  discipline_count INTEGER NOT NULL,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS disciplines (
+  id SERIAL PRIMARY KEY,
+  group_id INTEGER NOT NULL,
+  discipline_code VARCHAR(255) NOT NULL,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  FOREIGN KEY (group_id) REFERENCES groups(id) ON DELETE CASCADE,
+  UNIQUE(group_id, discipline_code)
+);
+
+CREATE TABLE IF NOT EXISTS ratings (
+  id SERIAL PRIMARY KEY,
+  discipline_id INTEGER NOT NULL,
+  student_number INTEGER NOT NULL,
+  student_name VARCHAR(255),
+  rating REAL NOT NULL CHECK(rating >= 0 AND rating <= 100),
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  FOREIGN KEY (discipline_id) REFERENCES disciplines(id) ON DELETE CASCADE,
+  UNIQUE(discipline_id, student_number)
+);
+
+-- Старые базы создавались без ФИО студента
+ALTER TABLE ratings ADD COLUMN IF NOT EXISTS student_name VARCHAR(255);
+
+CREATE TABLE IF NOT EXISTS summaries (
+  id SERIAL PRIMARY KEY,
+  group_id INTEGER NOT NULL,
+  discipline_id INTEGER NOT NULL,
+  avg_rating REAL NOT NULL,
+  rating_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+  rating_count INTEGER NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  FOREIGN KEY (group_id) REFERENCES groups(id) ON DELETE CASCADE,
+  FOREIGN KEY (discipline_id) REFERENCES disciplines(id) ON DELETE CASCADE,
+  UNIQUE(group_id, discipline_id)
+);
+
+-- Каскадное удаление дисциплины ищет её сводку по discipline_id.
+-- disciplines(group_id), ratings(discipline_id) и summaries(group_id) уже покрыты
+-- ведущими колонками UNIQUE-ограничений
+CREATE INDEX IF NOT EXISTS idx_summaries_discipline_id ON summaries(discipline_id);
@@ -0,0 +1,73 @@
+-- Инкрементальные сводки: сумма и количество рейтингов поддерживаются триггерами.
+-- Триггеры уровня оператора получают изменённые строки через переходные таблицы
+-- и применяют к summaries агрегированные дельты - по одному UPDATE на оператор,
+-- без пересчёта AVG по всей дисциплине
+
+ALTER TABLE summaries ADD COLUMN IF NOT EXISTS rating_sum DOUBLE PRECISION NOT NULL DEFAULT 0;
+ALTER TABLE summaries ADD COLUMN IF NOT EXISTS rating_count INTEGER NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION ratings_summary_delta() RETURNS trigger AS $$
+BEGIN
+  IF TG_OP = 'INSERT' THEN
+    INSERT INTO summaries AS s (group_id, discipline_id, rating_sum, rating_count, avg_rating)
+    SELECT d.group_id, n.discipline_id, SUM(n.rating::double precision), COUNT(*), AVG(n.rating)
+    FROM new_rows n JOIN disciplines d ON d.id = n.discipline_id
+    GROUP BY d.group_id, n.discipline_id
+    ON CONFLICT (group_id, discipline_id) DO UPDATE SET
+      rating_sum = s.rating_sum + EXCLUDED.rating_sum,
+      rating_count = s.rating_count + EXCLUDED.rating_count,
+      avg_rating = COALESCE((s.rating_sum + EXCLUDED.rating_sum)
+                   / NULLIF(s.rating_count + EXCLUDED.rating_count, 0), 0),
+      updated_at = CURRENT_TIMESTAMP;
+  ELSIF TG_OP = 'UPDATE' THEN
+    INSERT INTO summaries AS s (group_id, discipline_id, rating_sum, rating_count, avg_rating)
+    SELECT d.group_id, x.discipline_id, SUM(x.delta_sum), SUM(x.delta_count),
+           COALESCE(SUM(x.delta_sum) / NULLIF(SUM(x.delta_count), 0), 0)
+    FROM (SELECT discipline_id, rating::double precision AS delta_sum, 1 AS delta_count FROM new_rows
+          UNION ALL
+          SELECT discipline_id, -rating::double precision, -1 FROM old_rows) x
+    JOIN disciplines d ON d.id = x.discipline_id
+    GROUP BY d.group_id, x.discipline_id
+    ON CONFLICT (group_id, discipline_id) DO UPDATE SET
+      rating_sum = s.rating_sum + EXCLUDED.rating_sum,
+      rating_count = s.rating_count + EXCLUDED.rating_count,
+      avg_rating = COALESCE((s.rating_sum + EXCLUDED.rating_sum)
+                   / NULLIF(s.rating_count + EXCLUDED.rating_count, 0), 0),
+      updated_at = CURRENT_TIMESTAMP;
+  ELSE
+    -- При каскадном удалении дисциплины её сводка удаляется вместе с ней, поэтому только UPDATE
+    UPDATE summaries s SET
+      rating_sum = s.rating_sum - o.delta_sum,
+      rating_count = s.rating_count - o.delta_count,
+      avg_rating = COALESCE((s.rating_sum - o.delta_sum) / NULLIF(s.rating_count - o.delta_count, 0), 0),
+      updated_at = CURRENT_TIMESTAMP
+    FROM (SELECT discipline_id, SUM(rating::double precision) AS delta_sum, COUNT(*) AS delta_count
+          FROM old_rows GROUP BY discipline_id) o
+    WHERE s.discipline_id = o.discipline_id;
+  END IF;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS ratings_summary_insert ON ratings;
+DROP TRIGGER IF EXISTS ratings_summary_update ON ratings;
+DROP TRIGGER IF EXISTS ratings_summary_delete ON ratings;
+
+CREATE TRIGGER ratings_summary_insert AFTER INSERT ON ratings
+  REFERENCING NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION ratings_summary_delta();
+CREATE TRIGGER ratings_summary_update AFTER UPDATE ON ratings
+  REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION ratings_summary_delta();
+CREATE TRIGGER ratings_summary_delete AFTER DELETE ON ratings
+  REFERENCING OLD TABLE AS old_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION ratings_summary_delta();
+
+-- Пересчитать существующие сводки один раз, дальше они поддерживаются дельтами
+INSERT INTO summaries (group_id, discipline_id, rating_sum, rating_count, avg_rating)
+SELECT d.group_id, d.id, COALESCE(SUM(r.rating::double precision), 0), COUNT(r.id), COALESCE(AVG(r.rating), 0)
+FROM disciplines d LEFT JOIN ratings r ON r.discipline_id = d.id
+GROUP BY d.group_id, d.id
+ON CONFLICT (group_id, discipline_id) DO UPDATE SET
+  rating_sum = EXCLUDED.rating_sum, rating_count = EXCLUDED.rating_count,
+  avg_rating = EXCLUDED.avg_rating, updated_at = CURRENT_TIMESTAMP;
@@ -0,0 +1,30 @@
+-- Уведомления об изменениях для других клиентов (LISTEN/NOTIFY).
+-- Строковый триггер отправляет в канал NotificationListener.CHANNEL payload "таблица:операция:id:родитель".
+-- pg_notify доставляет уведомление только после фиксации транзакции
+
+CREATE OR REPLACE FUNCTION notify_data_change() RETURNS trigger AS $$
+DECLARE
+  rec RECORD;
+  parent_id INTEGER := 0;
+BEGIN
+  IF TG_OP = 'DELETE' THEN rec := OLD; ELSE rec := NEW; END IF;
+  IF TG_TABLE_NAME = 'ratings' THEN parent_id := rec.discipline_id;
+  ELSIF TG_TABLE_NAME = 'disciplines' THEN parent_id := rec.group_id;
+  END IF;
+  PERFORM pg_notify('rating_system_changes',
+    TG_TABLE_NAME || ':' || TG_OP || ':' || rec.id || ':' || parent_id);
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS groups_notify_change ON groups;
+CREATE TRIGGER groups_notify_change AFTER INSERT OR UPDATE OR DELETE ON groups
+  FOR EACH ROW EXECUTE FUNCTION notify_data_change();
+
+DROP TRIGGER IF EXISTS disciplines_notify_change ON disciplines;
+CREATE TRIGGER disciplines_notify_change AFTER INSERT OR UPDATE OR DELETE ON disciplines
+  FOR EACH ROW EXECUTE FUNCTION notify_data_change();
+
+DROP TRIGGER IF EXISTS ratings_notify_change ON ratings;
+CREATE TRIGGER ratings_notify_change AFTER INSERT OR UPDATE OR DELETE ON ratings
+  FOR EACH ROW EXECUTE FUNCTION notify_data_change();
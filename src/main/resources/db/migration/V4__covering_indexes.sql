@@ -0,0 +1,31 @@
+-- Покрывающие индексы для частых чтений: ключ индекса совпадает с WHERE + ORDER BY запроса,
+-- остальные выбираемые колонки лежат в INCLUDE, поэтому запрос обслуживается Index Only Scan
+-- без обращения к таблице и без сортировки.
+-- Существующие UNIQUE-ограничения заменяются такими же по ключу, но с INCLUDE, а не дублируются
+-- вторым индексом: каждый лишний индекс на ratings удорожает вставку и массовую загрузку.
+-- ON CONFLICT (discipline_id, student_number) находит новое ограничение по тем же колонкам
+
+-- RatingService.getRatingsByDiscipline: WHERE discipline_id = ? ORDER BY student_number
+ALTER TABLE ratings DROP CONSTRAINT IF EXISTS ratings_discipline_id_student_number_key;
+ALTER TABLE ratings ADD CONSTRAINT ratings_discipline_student_key
+  UNIQUE (discipline_id, student_number) INCLUDE (id, student_name, rating);
+
+-- DisciplineService.getDisciplinesByGroup: WHERE group_id = ? ORDER BY discipline_code
+ALTER TABLE disciplines DROP CONSTRAINT IF EXISTS disciplines_group_id_discipline_code_key;
+ALTER TABLE disciplines ADD CONSTRAINT disciplines_group_code_key
+  UNIQUE (group_id, discipline_code) INCLUDE (id);
+
+-- GroupService.getAllGroups (список групп в MainController): ORDER BY group_code
+ALTER TABLE groups DROP CONSTRAINT IF EXISTS groups_group_code_key;
+ALTER TABLE groups ADD CONSTRAINT groups_code_key
+  UNIQUE (group_code) INCLUDE (id, student_count, discipline_count);
+
+-- RatingService.getSummaryByGroup / getAverageRating / getRatingCount: поиск сводки по discipline_id
+DROP INDEX IF EXISTS idx_summaries_discipline_id;
+CREATE INDEX idx_summaries_discipline_id ON summaries(discipline_id) INCLUDE (rating_sum, rating_count);
+
+-- Статистика для планировщика сразу, не дожидаясь autovacuum
+ANALYZE groups;
+ANALYZE disciplines;
+ANALYZE ratings;
+ANALYZE summaries;
@@ -0,0 +1,43 @@
+-- Уведомления об изменениях рейтингов - триггером уровня оператора, а не строки.
+-- Строковый триггер V3 на пакетный upsert, COPY-слияние или импорт отправлял по уведомлению
+-- на каждую строку, и все они копились в очереди NOTIFY сервера до фиксации транзакции.
+-- Теперь оператор отправляет одно уведомление на каждую затронутую дисциплину:
+-- "ratings:операция:id:дисциплина", где id - строка, если она одна, иначе 0 (перечитать дисциплину).
+-- groups и disciplines остаются на строковом триггере V3: массово они не меняются
+
+CREATE OR REPLACE FUNCTION notify_ratings_change() RETURNS trigger AS $$
+BEGIN
+  IF TG_OP = 'INSERT' THEN
+    PERFORM pg_notify('rating_system_changes', 'ratings:INSERT:'
+      || CASE WHEN COUNT(*) = 1 THEN MIN(id) ELSE 0 END || ':' || discipline_id)
+    FROM new_rows GROUP BY discipline_id;
+  ELSIF TG_OP = 'UPDATE' THEN
+    PERFORM pg_notify('rating_system_changes', 'ratings:UPDATE:'
+      || CASE WHEN COUNT(DISTINCT id) = 1 THEN MIN(id) ELSE 0 END || ':' || discipline_id)
+    FROM (SELECT id, discipline_id FROM new_rows
+          UNION ALL
+          SELECT id, discipline_id FROM old_rows) x
+    GROUP BY discipline_id;
+  ELSE
+    PERFORM pg_notify('rating_system_changes', 'ratings:DELETE:'
+      || CASE WHEN COUNT(*) = 1 THEN MIN(id) ELSE 0 END || ':' || discipline_id)
+    FROM old_rows GROUP BY discipline_id;
+  END IF;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS ratings_notify_change ON ratings;
+DROP TRIGGER IF EXISTS ratings_notify_insert ON ratings;
+DROP TRIGGER IF EXISTS ratings_notify_update ON ratings;
+DROP TRIGGER IF EXISTS ratings_notify_delete ON ratings;
+
+CREATE TRIGGER ratings_notify_insert AFTER INSERT ON ratings
+  REFERENCING NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION notify_ratings_change();
+CREATE TRIGGER ratings_notify_update AFTER UPDATE ON ratings
+  REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION notify_ratings_change();
+CREATE TRIGGER ratings_notify_delete AFTER DELETE ON ratings
+  REFERENCING OLD TABLE AS old_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION notify_ratings_change();